@@ -2,8 +2,10 @@ package org.lessons.java.final_project_java_spring_react;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class FinalProjectJavaSpringReactApplication {
 
 	public static void main(String[] args) {
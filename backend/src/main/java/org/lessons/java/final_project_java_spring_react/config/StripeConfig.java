@@ -11,8 +11,28 @@ public class StripeConfig {
     @Value("${stripe.api.key}")
     private String stripeApiKey;
 
+    // SDK-level limits; StripeCallGuard derives its per-call deadline from them
+    @Value("${stripe.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${stripe.read-timeout-ms:5000}")
+    private int readTimeoutMs;
+
+    @Value("${stripe.max-network-retries:1}")
+    private int maxNetworkRetries;
+
+    // Point the SDK at stripe-mock or FakeStripeServer (load tests)
+    @Value("${stripe.api-base:}")
+    private String apiBase;
+
     @PostConstruct
     public void init() {
         Stripe.apiKey = stripeApiKey;
+        Stripe.setConnectTimeout(connectTimeoutMs);
+        Stripe.setReadTimeout(readTimeoutMs);
+        Stripe.setMaxNetworkRetries(maxNetworkRetries);
+        if (!apiBase.isBlank()) {
+            Stripe.overrideApiBase(apiBase);
+        }
     }
 }
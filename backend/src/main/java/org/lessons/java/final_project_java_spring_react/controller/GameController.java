@@ -1,5 +1,6 @@
 package org.lessons.java.final_project_java_spring_react.controller;
 
+import org.lessons.java.final_project_java_spring_react.dto.GameCatalogItem;
 import org.lessons.java.final_project_java_spring_react.model.Game;
 import org.lessons.java.final_project_java_spring_react.service.CategoryService;
 import org.lessons.java.final_project_java_spring_react.service.GameService;
@@ -29,11 +30,11 @@ public class GameController {
     // List all games
     @GetMapping
     public String index(Model model, @RequestParam(required = false) String search) {
-        List<Game> games;
+        List<GameCatalogItem> games;
         if (search != null && !search.isEmpty()) {
-            games = gameService.findByTitle(search);
+            games = gameService.findCatalogByTitle(search);
         } else {
-            games = gameService.findAll();
+            games = gameService.findCatalog();
         }
         model.addAttribute("games", games);
         model.addAttribute("search", search);
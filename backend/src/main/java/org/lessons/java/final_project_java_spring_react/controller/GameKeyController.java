@@ -1,40 +1,67 @@
 package org.lessons.java.final_project_java_spring_react.controller;
 
+import org.lessons.java.final_project_java_spring_react.dto.GameKeyRow;
 import org.lessons.java.final_project_java_spring_react.model.GameKey;
+import org.lessons.java.final_project_java_spring_react.service.GameKeyImportService;
 import org.lessons.java.final_project_java_spring_react.service.GameKeyService;
 import org.lessons.java.final_project_java_spring_react.service.GameService;
 import org.lessons.java.final_project_java_spring_react.service.PlatformService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 
 @Controller
 @RequestMapping("/admin/game-keys")
 public class GameKeyController {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private GameKeyService gameKeyService;
 
+    @Autowired
+    private GameKeyImportService gameKeyImportService;
+
     @Autowired
     private GameService gameService;
 
     @Autowired
     private PlatformService platformService;
 
-    // List all game keys
+    // Browse game keys one page at a time, every filter is optional
     @GetMapping
-    public String index(@RequestParam(required = false) String search, Model model) {
-        List<GameKey> gameKeys;
-        if (search != null && !search.trim().isEmpty()) {
-            gameKeys = gameKeyService.searchGameKeys(search);
-        } else {
-            gameKeys = gameKeyService.getAllGameKeys();
-        }
-        model.addAttribute("gameKeys", gameKeys);
+    public String index(@RequestParam(required = false) Long gameId,
+            @RequestParam(required = false) Long platformId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate soldFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate soldTo,
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            Model model) {
+        // "sold" / "unsold", anything else means both
+        Boolean sold = "sold".equals(status) ? Boolean.TRUE : "unsold".equals(status) ? Boolean.FALSE : null;
+        Page<GameKeyRow> keysPage = gameKeyService.browseKeys(gameId, platformId, sold, soldFrom, soldTo, search,
+                Math.max(page, 0), Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+
+        model.addAttribute("keysPage", keysPage);
+        model.addAttribute("games", gameService.findAllSortedByTitle());
+        model.addAttribute("platforms", platformService.findAllSortedByName());
+        model.addAttribute("gameId", gameId);
+        model.addAttribute("platformId", platformId);
+        model.addAttribute("status", status);
+        model.addAttribute("soldFrom", soldFrom);
+        model.addAttribute("soldTo", soldTo);
         model.addAttribute("search", search);
+        model.addAttribute("size", size);
         return "game-keys/index";
     }
 
@@ -51,7 +78,7 @@ public class GameKeyController {
     @GetMapping("/create")
     public String create(Model model) {
         model.addAttribute("gameKey", new GameKey());
-        model.addAttribute("games", gameService.findAll());
+        model.addAttribute("games", gameService.findAllSortedByTitle());
         model.addAttribute("platforms", platformService.findAll());
         return "game-keys/form";
     }
@@ -59,7 +86,7 @@ public class GameKeyController {
     // Store new game key
     @PostMapping
     public String store(@ModelAttribute GameKey gameKey) {
-        gameKeyService.saveGameKey(gameKey);
+        gameKeyService.createGameKey(gameKey);
         return "redirect:/admin/game-keys";
     }
 
@@ -69,7 +96,7 @@ public class GameKeyController {
         GameKey gameKey = gameKeyService.getGameKeyById(id)
                 .orElseThrow(() -> new RuntimeException("Game key not found"));
         model.addAttribute("gameKey", gameKey);
-        model.addAttribute("games", gameService.findAll());
+        model.addAttribute("games", gameService.findAllSortedByTitle());
         model.addAttribute("platforms", platformService.findAll());
         return "game-keys/form";
     }
@@ -77,11 +104,32 @@ public class GameKeyController {
     // Update game key
     @PostMapping("/update/{id}")
     public String update(@PathVariable Long id, @ModelAttribute GameKey gameKey) {
-        gameKey.setId(id);
-        gameKeyService.saveGameKey(gameKey);
+        gameKeyService.updateGameKey(id, gameKey);
         return "redirect:/admin/game-keys";
     }
 
+    // Bulk import form
+    @GetMapping("/import")
+    public String importForm() {
+        return "game-keys/import";
+    }
+
+    // Bulk import: CSV upload, one "gameId,platformId,keyCode" per line
+    @PostMapping("/import")
+    public String importKeys(@RequestParam("file") MultipartFile file, Model model) {
+        if (file.isEmpty()) {
+            model.addAttribute("error", "Please choose a CSV file to import");
+            return "game-keys/import";
+        }
+
+        try (InputStream input = file.getInputStream()) {
+            model.addAttribute("result", gameKeyImportService.importCsv(input));
+        } catch (IOException e) {
+            model.addAttribute("error", "Could not read the uploaded file: " + e.getMessage());
+        }
+        return "game-keys/import";
+    }
+
     // Delete game key
     @PostMapping("/delete/{id}")
     public String delete(@PathVariable Long id) {
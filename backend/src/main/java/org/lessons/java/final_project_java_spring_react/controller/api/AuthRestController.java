@@ -8,7 +8,7 @@ import org.lessons.java.final_project_java_spring_react.model.Role;
 import org.lessons.java.final_project_java_spring_react.model.User;
 import org.lessons.java.final_project_java_spring_react.repository.RoleRepository;
 import org.lessons.java.final_project_java_spring_react.repository.UserRepository;
-import org.lessons.java.final_project_java_spring_react.service.EmailService;
+import org.lessons.java.final_project_java_spring_react.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -36,7 +36,7 @@ public class AuthRestController {
     private PasswordEncoder passwordEncoder;
 
     @Autowired
-    private EmailService emailService;
+    private UserService userService;
 
     @PostMapping("/register")
     public ResponseEntity<?> registerUser(@Valid @RequestBody RegistrationRequest registrationRequest) {
@@ -73,15 +73,8 @@ public class AuthRestController {
                         .body(new ErrorResponse("User role not found in database"));
             }
 
-            // Save user
-            User savedUser = userRepository.save(user);
-
-            // Send welcome email
-            try {
-                emailService.sendWelcomeEmail(savedUser);
-            } catch (Exception emailEx) {
-                System.err.println("Failed to send welcome email: " + emailEx.getMessage());
-            }
+            // Save user (the welcome email is sent in the background)
+            userService.register(user);
 
             return ResponseEntity
                     .status(HttpStatus.CREATED)
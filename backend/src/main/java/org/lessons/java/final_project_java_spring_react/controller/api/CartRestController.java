@@ -0,0 +1,74 @@
+package org.lessons.java.final_project_java_spring_react.controller.api;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import org.lessons.java.final_project_java_spring_react.dto.CartLine;
+import org.lessons.java.final_project_java_spring_react.dto.CartQuote;
+import org.lessons.java.final_project_java_spring_react.service.CartQuoteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cart")
+@CrossOrigin(origins = "http://localhost:5173")
+public class CartRestController {
+
+    private static final int MAX_CART_ITEMS = 100;
+
+    // Nested request class - same item shape as the checkout request
+    public static class QuoteRequest {
+        @NotEmpty(message = "Cart items cannot be empty")
+        @Size(max = MAX_CART_ITEMS, message = "A cart can hold at most " + MAX_CART_ITEMS + " items")
+        private List<@Valid CartItem> items;
+
+        public static class CartItem {
+            @NotNull(message = "Game ID is required")
+            private Long gameId;
+
+            @NotNull(message = "Platform ID is required")
+            private Long platformId;
+
+            public Long getGameId() {
+                return gameId;
+            }
+
+            public void setGameId(Long gameId) {
+                this.gameId = gameId;
+            }
+
+            public Long getPlatformId() {
+                return platformId;
+            }
+
+            public void setPlatformId(Long platformId) {
+                this.platformId = platformId;
+            }
+        }
+
+        public List<CartItem> getItems() {
+            return items;
+        }
+
+        public void setItems(List<CartItem> items) {
+            this.items = items;
+        }
+    }
+
+    @Autowired
+    private CartQuoteService cartQuoteService;
+
+    //> QUOTE
+    // Prices the whole cart server-side: the cart and checkout pages show these amounts
+    @PostMapping("/quote")
+    public ResponseEntity<CartQuote> quote(@Valid @RequestBody QuoteRequest request) {
+        List<CartLine> lines = request.getItems().stream()
+                .map(item -> new CartLine(item.getGameId(), item.getPlatformId()))
+                .toList();
+        return ResponseEntity.ok(cartQuoteService.quote(lines));
+    }
+}
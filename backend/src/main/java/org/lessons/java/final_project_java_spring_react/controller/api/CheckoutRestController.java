@@ -5,25 +5,30 @@ import com.stripe.model.checkout.Session;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
-import org.lessons.java.final_project_java_spring_react.model.Game;
-import org.lessons.java.final_project_java_spring_react.model.GameKey;
+import org.lessons.java.final_project_java_spring_react.dto.CartLine;
+import org.lessons.java.final_project_java_spring_react.dto.CartQuote;
+import org.lessons.java.final_project_java_spring_react.dto.CartQuoteLine;
+import org.lessons.java.final_project_java_spring_react.model.IdempotencyRecord;
 import org.lessons.java.final_project_java_spring_react.model.Order;
 import org.lessons.java.final_project_java_spring_react.model.User;
 import org.lessons.java.final_project_java_spring_react.repository.UserRepository;
 import org.lessons.java.final_project_java_spring_react.security.DatabaseUserDetails;
-import org.lessons.java.final_project_java_spring_react.service.EmailService;
-import org.lessons.java.final_project_java_spring_react.service.GameKeyService;
-import org.lessons.java.final_project_java_spring_react.service.GameService;
+import org.lessons.java.final_project_java_spring_react.service.CartQuoteService;
+import org.lessons.java.final_project_java_spring_react.service.IdempotencyService;
 import org.lessons.java.final_project_java_spring_react.service.OrderService;
 import org.lessons.java.final_project_java_spring_react.service.StripeService;
+import org.lessons.java.final_project_java_spring_react.service.StripeUnavailableException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 
@@ -70,14 +75,13 @@ public class CheckoutRestController {
         }
     }
 
-    @Autowired
-    private StripeService stripeService;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
 
     @Autowired
-    private GameService gameService;
+    private StripeService stripeService;
 
     @Autowired
-    private GameKeyService gameKeyService;
+    private CartQuoteService cartQuoteService;
 
     @Autowired
     private OrderService orderService;
@@ -86,11 +90,12 @@ public class CheckoutRestController {
     private UserRepository userRepository;
 
     @Autowired
-    private EmailService emailService;
+    private IdempotencyService idempotencyService;
 
     @PostMapping("/create-session")
     public ResponseEntity<?> createCheckoutSession(
             @Valid @RequestBody CheckoutRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @AuthenticationPrincipal DatabaseUserDetails userDetails) {
 
         if (userDetails == null) {
@@ -98,91 +103,148 @@ public class CheckoutRestController {
                     .body(Map.of("error", "Authentication required"));
         }
 
+        if (idempotencyKey == null) {
+            return createSession(request, userDetails);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Idempotency-Key must be 1 to " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters"));
+        }
+
+        // A repeat gets the original session and order back, nothing is re-run
+        Integer userId = userDetails.getId();
+        String requestHash = requestHash(request);
+        IdempotencyRecord previous = idempotencyService.findCompleted(userId, idempotencyKey);
+        if (previous == null && !idempotencyService.claim(userId, idempotencyKey, requestHash)) {
+            // Claimed by another request: it may have completed in the meantime
+            previous = idempotencyService.findCurrent(userId, idempotencyKey);
+            if (previous == null || (!previous.isCompleted() && previous.isSameRequest(requestHash))) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("error", "A checkout with this Idempotency-Key is already in progress"));
+            }
+        }
+        if (previous != null) {
+            if (!previous.isSameRequest(requestHash)) {
+                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                        .body(Map.of("error", "This Idempotency-Key was already used for a different cart"));
+            }
+            return ResponseEntity.ok(sessionResponse(previous.getSessionId(), previous.getSessionUrl(),
+                    previous.getOrderId()));
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = createSession(request, userDetails);
+        } catch (RuntimeException e) {
+            idempotencyService.release(userId, idempotencyKey);
+            throw e;
+        }
+        if (response.getStatusCode().is2xxSuccessful() && response.getBody() instanceof Map<?, ?> body) {
+            idempotencyService.complete(userId, idempotencyKey, requestHash, (String) body.get("sessionId"),
+                    (String) body.get("url"), (Long) body.get("orderId"));
+        } else {
+            idempotencyService.release(userId, idempotencyKey);
+        }
+        return response;
+    }
+
+    // Same cart lines in the same order give the same hash
+    private static String requestHash(CheckoutRequest request) {
+        StringBuilder canonical = new StringBuilder();
+        for (CheckoutRequest.CartItem item : request.getItems()) {
+            canonical.append(item.getGameId()).append(':').append(item.getPlatformId()).append(';');
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private ResponseEntity<?> createSession(CheckoutRequest request, DatabaseUserDetails userDetails) {
         // Get the actual User entity from the database
         User user = userRepository.findById(userDetails.getId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         try {
-            // Validate all games exist and have available keys
-            List<Game> games = new ArrayList<>();
-            Map<Long, Long> gamePlatformMap = new HashMap<>();
-
+            List<CartLine> lines = new ArrayList<>();
             for (CheckoutRequest.CartItem item : request.getItems()) {
-                Game game = gameService.findById(item.getGameId())
-                        .orElseThrow(() -> new RuntimeException("Game not found: " + item.getGameId()));
+                lines.add(new CartLine(item.getGameId(), item.getPlatformId()));
+            }
 
-                // Check if there's an available key for this game/platform combination
-                GameKey availableKey = gameKeyService.findFirstAvailableKey(item.getGameId(), item.getPlatformId());
-                if (availableKey == null) {
+            // Same pricing and stock check as the cart page, on live prices - the actual keys are reserved below
+            CartQuote quote = cartQuoteService.quoteForCheckout(lines);
+            for (CartQuoteLine line : quote.getLines()) {
+                if (!line.isAvailable()) {
                     return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                            .body(Map.of("error", "No available keys for " + game.getTitle()));
+                            .body(Map.of("error", line.getError()));
                 }
-
-                games.add(game);
-                gamePlatformMap.put(item.getGameId(), item.getPlatformId());
             }
 
             // Create Stripe checkout session
-            Session session = stripeService.createCheckoutSession(games);
+            Session session = stripeService.createCheckoutSession(quote.getLines());
 
-            // Create pending order
-            Order order = new Order();
-            order.setUser(user);
-            order.setPaymentStatus("PENDING");
-            order.setStripePaymentIntentId(session.getId());
+            // Create pending order and reserve the keys (don't mark as sold yet)
+            Order order = orderService.createPendingOrder(user, session.getId(), quote);
 
-            // Reserve the keys (don't mark as sold yet)
-            List<GameKey> reservedKeys = new ArrayList<>();
-            for (CheckoutRequest.CartItem item : request.getItems()) {
-                GameKey key = gameKeyService.findFirstAvailableKey(item.getGameId(), item.getPlatformId());
-                key.setOrder(order);
-                reservedKeys.add(key);
-            }
-            order.setGameKeys(reservedKeys);
-            order.calculateTotalPrice();
-
-            orderService.save(order);
-
-            return ResponseEntity.ok(Map.of(
-                    "sessionId", session.getId(),
-                    "url", session.getUrl(),
-                    "orderId", order.getId()));
+            return ResponseEntity.ok(sessionResponse(session.getId(), session.getUrl(), order.getId()));
 
         } catch (StripeException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Stripe error: " + e.getMessage()));
+        } catch (StripeUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
         }
     }
 
+    private Map<String, Object> sessionResponse(String sessionId, String url, Long orderId) {
+        return Map.of(
+                "sessionId", sessionId,
+                "url", url,
+                "orderId", orderId);
+    }
+
+    // Cheap status read: the order is completed by the Stripe webhook (StripeEventQueue).
+    // Returns 202 while the webhook has not been applied yet, the client polls again.
     @GetMapping("/success")
     public ResponseEntity<?> handleSuccess(@RequestParam("session_id") String sessionId) {
-        try {
-            Session session = stripeService.retrieveSession(sessionId);
-
-            // Find order by stripe session ID
-            Order order = orderService.findByStripePaymentIntentId(sessionId)
-                    .orElseThrow(() -> new RuntimeException("Order not found"));
+        Order order = orderService.findByStripePaymentIntentId(sessionId).orElse(null);
+        if (order == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Order not found"));
+        }
 
-            if ("paid".equals(session.getPaymentStatus())) {
-                // Mark order as completed and keys as sold
-                order.setPaymentStatus("COMPLETED");
-                order.setPaymentMethod(session.getPaymentMethodTypes().get(0));
+        if ("COMPLETED".equals(order.getPaymentStatus())) {
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "order", order));
+        }
+        if ("FAILED".equals(order.getPaymentStatus())) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Order reservation has expired"));
+        }
 
-                for (GameKey key : order.getGameKeys()) {
-                    key.setSold(true);
-                }
+        if (!stripeService.isWebhookEnabled()) {
+            // No webhook configured (local setups): ask Stripe directly
+            return confirmWithStripe(order, sessionId);
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(Map.of("success", false, "status", order.getPaymentStatus()));
+    }
 
-                Order savedOrder = orderService.save(order);
+    private ResponseEntity<?> confirmWithStripe(Order order, String sessionId) {
+        try {
+            Session session = stripeService.retrieveSession(sessionId);
 
-                // Send order confirmation email
-                try {
-                    emailService.sendOrderConfirmationEmail(savedOrder, savedOrder.getGameKeys());
-                } catch (Exception emailEx) {
-                    System.err.println("Failed to send order confirmation email: " + emailEx.getMessage());
-                }
+            if ("paid".equals(session.getPaymentStatus())) {
+                // Mark order as completed and keys as sold (queues the confirmation email)
+                Order savedOrder = orderService.completeOrder(order.getId(),
+                        session.getPaymentMethodTypes().get(0));
 
                 return ResponseEntity.ok(Map.of(
                         "success", true,
@@ -195,6 +257,9 @@ public class CheckoutRestController {
         } catch (StripeException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Stripe error: " + e.getMessage()));
+        } catch (StripeUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
@@ -205,14 +270,7 @@ public class CheckoutRestController {
     public ResponseEntity<?> handleCancel(@RequestParam(value = "order_id", required = false) Long orderId) {
         if (orderId != null) {
             // Release reserved keys
-            Order order = orderService.findById(orderId)
-                    .orElseThrow(() -> new RuntimeException("Order not found"));
-
-            order.setPaymentStatus("FAILED");
-            for (GameKey key : order.getGameKeys()) {
-                key.setOrder(null);
-            }
-            orderService.save(order);
+            orderService.cancelOrder(orderId);
         }
 
         return ResponseEntity.ok(Map.of("cancelled", true));
@@ -1,11 +1,18 @@
 package org.lessons.java.final_project_java_spring_react.controller.api;
 
+import org.lessons.java.final_project_java_spring_react.dto.CatalogSort;
+import org.lessons.java.final_project_java_spring_react.dto.GameCatalogItem;
+import org.lessons.java.final_project_java_spring_react.dto.GameSuggestion;
+import org.lessons.java.final_project_java_spring_react.dto.ReviewSort;
 import org.lessons.java.final_project_java_spring_react.model.Game;
+import org.lessons.java.final_project_java_spring_react.model.GameStockId;
 import org.lessons.java.final_project_java_spring_react.model.Review;
 import org.lessons.java.final_project_java_spring_react.model.User;
 import org.lessons.java.final_project_java_spring_react.service.GameService;
+import org.lessons.java.final_project_java_spring_react.service.GameStockService;
 import org.lessons.java.final_project_java_spring_react.service.ReviewService;
 import org.lessons.java.final_project_java_spring_react.repository.UserRepository;
+import org.lessons.java.final_project_java_spring_react.search.TitleSuggester;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -14,6 +21,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -23,36 +31,96 @@ import java.util.Optional;
 @CrossOrigin
 public class GameRestController {
 
+    public static final int MAX_STOCK_LOOKUPS = 100;
+
+    // Nested request class - one (game, platform) pair of a batch stock lookup
+    public static class StockQuery {
+        private Long gameId;
+
+        private Long platformId;
+
+        public Long getGameId() {
+            return gameId;
+        }
+
+        public void setGameId(Long gameId) {
+            this.gameId = gameId;
+        }
+
+        public Long getPlatformId() {
+            return platformId;
+        }
+
+        public void setPlatformId(Long platformId) {
+            this.platformId = platformId;
+        }
+    }
+
     @Autowired
     private GameService gameService;
 
+    @Autowired
+    private GameStockService gameStockService;
+
     @Autowired
     private ReviewService reviewService;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TitleSuggester titleSuggester;
+
     //> INDEX
+    // averageRating is the persisted value kept up to date by ReviewService
+    // fuzzy=true tolerates typos in the title ("witchr" -> "The Witcher 3")
     @GetMapping
-    public List<Game> index(@RequestParam(required = false) String search) {
-        List<Game> games;
+    public List<GameCatalogItem> index(@RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "false") boolean fuzzy) {
         if (search != null && !search.isEmpty()) {
-            games = gameService.findByTitle(search);
-        } else {
-            games = gameService.findAll();
+            return fuzzy ? gameService.findCatalogByTitleFuzzy(search) : gameService.findCatalogByTitle(search);
         }
-        // Calculate average rating for each game before returning
-        games.forEach(Game::calculateAverageRating);
-        return games;
+        return gameService.findCatalog();
     }
 
     //> INDEX - Hot Deals
     @GetMapping("/hot-deals")
-    public List<Game> hotDeals() {
-        List<Game> games = gameService.findGamesWithDiscounts();
-        // Calculate average rating for each game before returning
-        games.forEach(Game::calculateAverageRating);
-        return games;
+    public List<GameCatalogItem> hotDeals() {
+        return gameService.findCatalogWithDiscounts();
+    }
+
+    //> INDEX - Cursor paginated catalog (e.g. /api/games/page?sort=price&limit=24&cursor=...)
+    @GetMapping("/page")
+    public ResponseEntity<?> page(
+            @RequestParam(defaultValue = "TITLE") CatalogSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "24") int limit) {
+        try {
+            return ResponseEntity.ok(gameService.findCatalogPage(sort, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    //> INDEX - Cursor paginated Hot Deals
+    @GetMapping("/hot-deals/page")
+    public ResponseEntity<?> hotDealsPage(
+            @RequestParam(defaultValue = "TITLE") CatalogSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "24") int limit) {
+        try {
+            return ResponseEntity.ok(gameService.findCatalogPageWithDiscounts(sort, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    //> SUGGEST - Typeahead for the search bar, served from memory (no database query)
+    @GetMapping("/suggest")
+    public List<GameSuggestion> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        return titleSuggester.suggest(q, Math.min(limit, 20));
     }
 
     //> SHOW
@@ -64,10 +132,26 @@ public class GameRestController {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
 
-        Game game = gameAttempt.get();
-        // Calculate average rating before returning
-        game.calculateAverageRating();
-        return new ResponseEntity<>(game, HttpStatus.OK);
+        // averageRating is persisted, reviews come from /api/games/{id}/reviews
+        return new ResponseEntity<>(gameAttempt.get(), HttpStatus.OK);
+    }
+
+    //> REVIEWS - Cursor paginated (e.g. /api/games/3/reviews?sort=top_rated&limit=10&cursor=...)
+    @GetMapping("/{id}/reviews")
+    public ResponseEntity<?> reviews(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "NEWEST") ReviewSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (!gameService.existsById(id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("message", "Game not found"));
+        }
+        try {
+            return ResponseEntity.ok(reviewService.findGamePage(id, sort, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
     }
 
     //> STORE
@@ -143,20 +227,49 @@ public class GameRestController {
             @PathVariable Long gameId,
             @PathVariable Long platformId) {
 
-        Optional<Game> gameOpt = gameService.findById(gameId);
-        if (gameOpt.isEmpty()) {
+        if (!gameService.existsById(gameId)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("message", "Game not found"));
         }
 
-        Game game = gameOpt.get();
-        long availableStock = game.getGameKeys().stream()
-                .filter(key -> !key.isSold() && key.getPlatform().getId().equals(platformId))
-                .count();
+        long availableStock = gameStockService.getAvailableStock(gameId, platformId);
 
         return ResponseEntity.ok(Map.of(
                 "gameId", gameId,
                 "platformId", platformId,
                 "availableStock", availableStock));
     }
+
+    //> GET STOCK FOR MANY (game, platform) PAIRS - cart and product grids
+    /**
+     * Expected JSON format:
+     * [
+     *   { "gameId": 1, "platformId": 4 },
+     *   { "gameId": 3, "platformId": 1 }
+     * ]
+     */
+    @PostMapping("/stock")
+    public ResponseEntity<?> getStockBatch(@RequestBody List<StockQuery> queries) {
+        if (queries.size() > MAX_STOCK_LOOKUPS) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "At most " + MAX_STOCK_LOOKUPS + " stock lookups per request"));
+        }
+
+        List<GameStockId> pairs = new ArrayList<>();
+        for (StockQuery query : queries) {
+            if (query.getGameId() == null || query.getPlatformId() == null) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("message", "gameId and platformId are required"));
+            }
+            pairs.add(new GameStockId(query.getGameId(), query.getPlatformId()));
+        }
+
+        List<Map<String, Object>> stock = new ArrayList<>();
+        gameStockService.getAvailableStock(pairs).forEach((pair, availableStock) -> stock.add(Map.of(
+                "gameId", pair.getGameId(),
+                "platformId", pair.getPlatformId(),
+                "availableStock", availableStock)));
+
+        return ResponseEntity.ok(stock);
+    }
 }
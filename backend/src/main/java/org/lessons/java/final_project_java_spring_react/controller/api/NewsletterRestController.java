@@ -1,14 +1,22 @@
 package org.lessons.java.final_project_java_spring_react.controller.api;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
+import org.lessons.java.final_project_java_spring_react.dto.SubscriberPage;
+import org.lessons.java.final_project_java_spring_react.model.NewsletterCampaign;
 import org.lessons.java.final_project_java_spring_react.model.NewsletterSubscriber;
 import org.lessons.java.final_project_java_spring_react.repository.NewsletterSubscriberRepository;
-import org.lessons.java.final_project_java_spring_react.service.EmailService;
+import org.lessons.java.final_project_java_spring_react.service.NewsletterSender;
+import org.lessons.java.final_project_java_spring_react.service.NewsletterSubscriberService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -19,6 +27,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
@@ -31,7 +40,10 @@ public class NewsletterRestController {
     private NewsletterSubscriberRepository subscriberRepository;
 
     @Autowired
-    private EmailService emailService;
+    private NewsletterSender newsletterSender;
+
+    @Autowired
+    private NewsletterSubscriberService subscriberService;
 
     /**
      * Subscribe to newsletter
@@ -42,10 +54,8 @@ public class NewsletterRestController {
             return ResponseEntity.badRequest().body(Map.of("message", "Email already subscribed to newsletter"));
         }
 
-        NewsletterSubscriber saved = subscriberRepository.save(subscriber);
-
-        // Send formatted welcome email
-        emailService.sendNewsletterWelcomeEmail(saved.getEmail());
+        // The welcome email goes through the email outbox
+        subscriberService.subscribe(subscriber);
 
         return ResponseEntity.ok(Map.of("message", "Successfully subscribed to newsletter!"));
     }
@@ -65,32 +75,62 @@ public class NewsletterRestController {
     }
 
     /**
-     * Get all active subscribers (ADMIN only - add security later)
+     * Get active subscribers, one page at a time (ADMIN only).
+     * Pass the returned nextCursor as cursor to get the following page.
      */
     @GetMapping("/subscribers")
-    public ResponseEntity<List<NewsletterSubscriber>> getAllSubscribers() {
-        return ResponseEntity.ok(subscriberRepository.findByActiveTrue());
+    public ResponseEntity<SubscriberPage> getSubscribers(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(subscriberService.findActivePage(cursor, limit));
+    }
+
+    /**
+     * Export every subscriber as CSV, streamed (ADMIN only)
+     */
+    @GetMapping("/subscribers/export")
+    public ResponseEntity<StreamingResponseBody> exportSubscribers() {
+        StreamingResponseBody body = output -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            long rows = subscriberService.exportCsv(writer);
+            writer.flush();
+            System.out.println("✓ Exported " + rows + " newsletter subscribers");
+        };
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"newsletter-subscribers.csv\"")
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(body);
     }
 
     /**
-     * Send newsletter to all subscribers (ADMIN only - add security later)
+     * Send newsletter to all subscribers (ADMIN only).
+     * Runs in the background: poll the returned campaign for progress.
      */
     @PostMapping("/send")
     public ResponseEntity<?> sendNewsletter(
             @RequestParam String subject,
             @RequestBody String htmlContent) {
 
-        List<String> emails = subscriberRepository.findByActiveTrue()
-                .stream()
-                .map(NewsletterSubscriber::getEmail)
-                .collect(Collectors.toList());
-
-        emailService.sendNewsletterEmail(subject, htmlContent, emails);
+        NewsletterCampaign campaign = newsletterSender.createCampaign(subject, htmlContent);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("message", "Newsletter sent successfully");
-        response.put("recipientsCount", emails.size());
+        response.put("message", "Newsletter queued for sending");
+        response.put("campaignId", campaign.getId());
+        response.put("recipientsCount", campaign.getTotalRecipients());
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
 
-        return ResponseEntity.ok(response);
+    /**
+     * Progress of a newsletter send (ADMIN only)
+     */
+    @GetMapping("/campaigns/{id}")
+    public ResponseEntity<?> getCampaign(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(newsletterSender.getCampaign(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", e.getMessage()));
+        }
     }
 }
@@ -1,9 +1,8 @@
 package org.lessons.java.final_project_java_spring_react.controller.api;
 
-import org.lessons.java.final_project_java_spring_react.model.GameKey;
+import org.lessons.java.final_project_java_spring_react.dto.CartLine;
 import org.lessons.java.final_project_java_spring_react.model.Order;
 import org.lessons.java.final_project_java_spring_react.security.DatabaseUserDetails;
-import org.lessons.java.final_project_java_spring_react.service.GameKeyService;
 import org.lessons.java.final_project_java_spring_react.service.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -11,7 +10,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -28,9 +26,6 @@ public class OrderRestController {
     @Autowired
     private OrderService orderService;
 
-    @Autowired
-    private GameKeyService gameKeyService;
-
     //> INDEX
     @GetMapping
     public List<Order> index(@RequestParam(required = false) Integer userId) {
@@ -61,7 +56,7 @@ public class OrderRestController {
                     orderMap.put("paymentMethod", order.getPaymentMethod());
 
                     // Include items with keys
-                    List<Map<String, Object>> items = order.getGameKeys().stream()
+                    List<Map<String, Object>> items = order.getAllKeys().stream()
                             .map(key -> {
                                 Map<String, Object> item = new HashMap<>();
                                 item.put("gameName", key.getGame().getTitle());
@@ -106,42 +101,19 @@ public class OrderRestController {
      */
     @PostMapping
     public ResponseEntity<?> store(@RequestBody OrderRequest orderRequest) {
-        // Create order (orderDate auto-set by @PrePersist, totalPrice calculated automatically)
-        Order order = new Order();
-        order.setUser(orderRequest.getUser());
-        // totalPrice will be calculated from game keys automatically
-        order.setPaymentMethod(orderRequest.getPaymentMethod());
-        order.setPaymentStatus("PENDING");
-        // orderDate will be set automatically by @PrePersist
-
-        // Save order first to get ID
-        Order savedOrder = orderService.saveOrder(order);
-
-        // Assign game keys to order
-        List<GameKey> purchasedKeys = new ArrayList<>();
+        // orderDate auto-set by @PrePersist, totalPrice calculated from the game keys
+        List<CartLine> lines = new ArrayList<>();
         for (OrderRequest.GameKeyRequest keyRequest : orderRequest.getGameKeys()) {
-            Optional<GameKey> keyAttempt = gameKeyService.getFirstAvailableKey(
-                    keyRequest.getGameId(),
-                    keyRequest.getPlatformId());
-
-            if (keyAttempt.isEmpty()) {
-                return ResponseEntity.badRequest()
-                        .body("No available key for game " + keyRequest.getGameId());
-            }
-
-            GameKey key = keyAttempt.get();
-            key.setSold(true);
-            key.setSoldAt(LocalDateTime.now());
-            key.setOrder(savedOrder);
-            gameKeyService.saveGameKey(key);
-            purchasedKeys.add(key);
+            lines.add(new CartLine(keyRequest.getGameId(), keyRequest.getPlatformId()));
         }
 
-        savedOrder.setGameKeys(purchasedKeys);
-        savedOrder.setPaymentStatus("COMPLETED");
-        orderService.saveOrder(savedOrder);
-
-        return new ResponseEntity<>(savedOrder, HttpStatus.OK);
+        try {
+            Order savedOrder = orderService.placeOrder(orderRequest.getUser(),
+                    orderRequest.getPaymentMethod(), lines);
+            return new ResponseEntity<>(savedOrder, HttpStatus.OK);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     //> UPDATE
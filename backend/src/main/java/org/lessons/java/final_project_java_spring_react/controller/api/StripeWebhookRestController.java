@@ -0,0 +1,72 @@
+package org.lessons.java.final_project_java_spring_react.controller.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Event;
+import org.lessons.java.final_project_java_spring_react.service.StripeEventQueue;
+import org.lessons.java.final_project_java_spring_react.service.StripeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Stripe webhook endpoint (Stripe dashboard or `stripe listen --forward-to
+ * localhost:8080/api/stripe/webhook`). Verifies the signature, queues
+ * checkout.session.completed / async_payment_succeeded events and answers at
+ * once; the order is completed by StripeEventQueue.
+ */
+@RestController
+@RequestMapping("/api/stripe")
+public class StripeWebhookRestController {
+
+    @Autowired
+    private StripeEventQueue stripeEventQueue;
+
+    @Autowired
+    private StripeService stripeService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PostMapping("/webhook")
+    public ResponseEntity<?> handleWebhook(@RequestBody String payload,
+            @RequestHeader(value = "Stripe-Signature", required = false) String signature) {
+
+        if (!stripeService.isWebhookEnabled()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Stripe webhook is not configured"));
+        }
+
+        Event event;
+        try {
+            event = stripeService.constructWebhookEvent(payload, signature);
+        } catch (SignatureVerificationException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid signature"));
+        }
+
+        //> CHECKOUT SESSION PAID
+        if (StripeEventQueue.isCheckoutEvent(event.getType())) {
+            try {
+                // Read from the raw JSON: it does not depend on the API version of the SDK
+                JsonNode session = objectMapper.readTree(event.getDataObjectDeserializer().getRawJson());
+                JsonNode methodTypes = session.path("payment_method_types");
+                stripeEventQueue.enqueue(event.getId(), event.getType(),
+                        session.path("id").asText(),
+                        session.path("payment_status").asText(null),
+                        methodTypes.isArray() && methodTypes.size() > 0 ? methodTypes.get(0).asText() : null);
+            } catch (Exception e) {
+                // Not stored: a non-2xx makes Stripe redeliver the event
+                System.err.println("❌ Failed to queue Stripe event " + event.getId() + ": " + e.getMessage());
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(Map.of("error", "Event could not be queued"));
+            }
+        }
+
+        // Other event types are acknowledged and ignored
+        return ResponseEntity.ok(Map.of("received", true));
+    }
+}
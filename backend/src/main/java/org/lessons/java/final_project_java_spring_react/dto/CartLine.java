@@ -0,0 +1,25 @@
+package org.lessons.java.final_project_java_spring_react.dto;
+
+/**
+ * One requested key: a game on a given platform
+ */
+public class CartLine {
+
+    private Long gameId;
+
+    private Long platformId;
+
+    public CartLine(Long gameId, Long platformId) {
+        this.gameId = gameId;
+        this.platformId = platformId;
+    }
+
+    // Getters
+    public Long getGameId() {
+        return gameId;
+    }
+
+    public Long getPlatformId() {
+        return platformId;
+    }
+}
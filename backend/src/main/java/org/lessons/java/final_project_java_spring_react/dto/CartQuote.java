@@ -0,0 +1,56 @@
+package org.lessons.java.final_project_java_spring_react.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.lessons.java.final_project_java_spring_react.model.Money;
+
+/**
+ * A whole cart priced by the server (see CartQuoteService): one line per cart
+ * item, in request order, plus the totals shown on the cart and checkout pages
+ */
+public class CartQuote {
+
+    private List<CartQuoteLine> lines;
+
+    private long subtotalCents;
+
+    private long totalCents;
+
+    public CartQuote(List<CartQuoteLine> lines) {
+        this.lines = lines;
+        for (CartQuoteLine line : lines) {
+            if (line.isAvailable()) {
+                subtotalCents += line.getOriginalPriceCents();
+                totalCents += line.getUnitPriceCents();
+            }
+        }
+    }
+
+    // Getters
+    public List<CartQuoteLine> getLines() {
+        return lines;
+    }
+
+    public int getItemCount() {
+        return lines.size();
+    }
+
+    // Before discounts, available lines only
+    public BigDecimal getSubtotal() {
+        return Money.toAmount(subtotalCents);
+    }
+
+    public BigDecimal getDiscount() {
+        return Money.toAmount(subtotalCents - totalCents);
+    }
+
+    public BigDecimal getTotal() {
+        return Money.toAmount(totalCents);
+    }
+
+    // True if every line can be bought, i.e. checkout will accept this cart
+    public boolean isPurchasable() {
+        return !lines.isEmpty() && lines.stream().allMatch(CartQuoteLine::isAvailable);
+    }
+}
@@ -0,0 +1,106 @@
+package org.lessons.java.final_project_java_spring_react.dto;
+
+import java.math.BigDecimal;
+
+import org.lessons.java.final_project_java_spring_react.model.Money;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * One cart item priced by the server. error is null when the item can be
+ * bought (game exists, sold on that platform, keys in stock).
+ */
+public class CartQuoteLine {
+
+    private Long gameId;
+
+    private Long platformId;
+
+    private String title;
+
+    private String imageUrl;
+
+    private long originalPriceCents;
+
+    private int discountPercentage;
+
+    private long unitPriceCents;
+
+    private long availableStock;
+
+    private String error;
+
+    // Only needed to build the Stripe line item
+    private String description;
+
+    public CartQuoteLine(Long gameId, Long platformId, String title, String imageUrl, String description,
+            long originalPriceCents, int discountPercentage, long unitPriceCents, long availableStock,
+            String error) {
+        this.gameId = gameId;
+        this.platformId = platformId;
+        this.title = title;
+        this.imageUrl = imageUrl;
+        this.description = description;
+        this.originalPriceCents = originalPriceCents;
+        this.discountPercentage = discountPercentage;
+        this.unitPriceCents = unitPriceCents;
+        this.availableStock = availableStock;
+        this.error = error;
+    }
+
+    // Getters
+    public Long getGameId() {
+        return gameId;
+    }
+
+    public Long getPlatformId() {
+        return platformId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    @JsonIgnore
+    public String getDescription() {
+        return description;
+    }
+
+    public BigDecimal getOriginalPrice() {
+        return Money.toAmount(originalPriceCents);
+    }
+
+    public int getDiscountPercentage() {
+        return discountPercentage;
+    }
+
+    public BigDecimal getUnitPrice() {
+        return Money.toAmount(unitPriceCents);
+    }
+
+    @JsonIgnore
+    public long getOriginalPriceCents() {
+        return originalPriceCents;
+    }
+
+    @JsonIgnore
+    public long getUnitPriceCents() {
+        return unitPriceCents;
+    }
+
+    public long getAvailableStock() {
+        return availableStock;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isAvailable() {
+        return error == null;
+    }
+}
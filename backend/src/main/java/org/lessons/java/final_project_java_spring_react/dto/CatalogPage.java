@@ -0,0 +1,28 @@
+package org.lessons.java.final_project_java_spring_react.dto;
+
+import java.util.List;
+
+/**
+ * One page of the catalog plus the opaque cursor for the following page
+ * (null when this is the last page)
+ */
+public class CatalogPage {
+
+    private List<GameCatalogItem> items;
+
+    private String nextCursor;
+
+    public CatalogPage(List<GameCatalogItem> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<GameCatalogItem> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
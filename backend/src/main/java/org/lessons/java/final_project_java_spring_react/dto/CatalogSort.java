@@ -0,0 +1,12 @@
+package org.lessons.java.final_project_java_spring_react.dto;
+
+/**
+ * Orderings supported by the paginated catalog. Every ordering uses the game id
+ * as a tiebreaker so the keyset cursor always points at exactly one row.
+ */
+public enum CatalogSort {
+    TITLE, // A-Z
+    PRICE, // cheapest first
+    RATING, // best rated first
+    RELEASE_DATE // newest first, undated games last
+}
@@ -0,0 +1,113 @@
+package org.lessons.java.final_project_java_spring_react.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.lessons.java.final_project_java_spring_react.model.Category;
+import org.lessons.java.final_project_java_spring_react.model.Game;
+import org.lessons.java.final_project_java_spring_react.model.Platform;
+
+/**
+ * List-view representation of a game used by the catalog endpoints.
+ * Stock comes from the game_stock counters instead of the gameKeys collection,
+ * so building it never touches the game_keys rows themselves.
+ */
+public class GameCatalogItem {
+
+    private Long id;
+
+    private String title;
+
+    private String description;
+
+    private Double price;
+
+    private String imageUrl;
+
+    private String publisher;
+
+    private LocalDate releaseDate;
+
+    private Double averageRating;
+
+    private Integer discountPercentage;
+
+    private List<Category> categories;
+
+    private List<Platform> platforms;
+
+    private Integer availableStock;
+
+    // platformId -> unsold keys on that platform
+    private Map<Long, Long> stockByPlatform;
+
+    public GameCatalogItem(Game game, Map<Long, Long> stockByPlatform) {
+        this.id = game.getId();
+        this.title = game.getTitle();
+        this.description = game.getDescription();
+        this.price = game.getPrice();
+        this.imageUrl = game.getImageUrl();
+        this.publisher = game.getPublisher();
+        this.releaseDate = game.getReleaseDate();
+        this.averageRating = game.getAverageRating();
+        this.discountPercentage = game.getDiscountPercentage();
+        this.categories = game.getCategories();
+        this.platforms = game.getPlatforms();
+        this.stockByPlatform = stockByPlatform;
+        this.availableStock = (int) stockByPlatform.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public String getPublisher() {
+        return publisher;
+    }
+
+    public LocalDate getReleaseDate() {
+        return releaseDate;
+    }
+
+    public Double getAverageRating() {
+        return averageRating;
+    }
+
+    public Integer getDiscountPercentage() {
+        return discountPercentage;
+    }
+
+    public List<Category> getCategories() {
+        return categories;
+    }
+
+    public List<Platform> getPlatforms() {
+        return platforms;
+    }
+
+    public Integer getAvailableStock() {
+        return availableStock;
+    }
+
+    public Map<Long, Long> getStockByPlatform() {
+        return stockByPlatform;
+    }
+}
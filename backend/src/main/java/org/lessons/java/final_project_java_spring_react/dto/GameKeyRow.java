@@ -0,0 +1,69 @@
+package org.lessons.java.final_project_java_spring_react.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of the admin key browser, built directly by a JPQL projection:
+ * no GameKey, Game or Order entity is loaded
+ */
+public class GameKeyRow {
+
+    private Long id;
+
+    private String keyCode;
+
+    private String gameTitle;
+
+    private String platformName;
+
+    private boolean sold;
+
+    private LocalDateTime soldAt;
+
+    private Long orderId;
+
+    public GameKeyRow(Long id, String keyCode, String gameTitle, String platformName, boolean sold,
+            LocalDateTime soldAt, Long orderId) {
+        this.id = id;
+        this.keyCode = keyCode;
+        this.gameTitle = gameTitle;
+        this.platformName = platformName;
+        this.sold = sold;
+        this.soldAt = soldAt;
+        this.orderId = orderId;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getKeyCode() {
+        return keyCode;
+    }
+
+    public String getGameTitle() {
+        return gameTitle;
+    }
+
+    public String getPlatformName() {
+        return platformName;
+    }
+
+    public boolean isSold() {
+        return sold;
+    }
+
+    public LocalDateTime getSoldAt() {
+        return soldAt;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    // Unsold but attached to a pending checkout
+    public boolean isReserved() {
+        return !sold && orderId != null;
+    }
+}
@@ -0,0 +1,57 @@
+package org.lessons.java.final_project_java_spring_react.dto;
+
+import java.time.LocalDateTime;
+
+import org.lessons.java.final_project_java_spring_react.model.Review;
+
+/**
+ * Review as listed on a game page: no game, and only the author's username
+ */
+public class GameReview {
+
+    private Long id;
+
+    private Integer rating;
+
+    private String comment;
+
+    private LocalDateTime createdAt;
+
+    private Boolean isBlurred;
+
+    private String username;
+
+    public GameReview(Review review) {
+        this.id = review.getId();
+        this.rating = review.getRating();
+        this.comment = review.getComment();
+        this.createdAt = review.getCreatedAt();
+        this.isBlurred = review.getIsBlurred();
+        this.username = review.getUser() != null ? review.getUser().getUsername() : null;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Integer getRating() {
+        return rating;
+    }
+
+    public String getComment() {
+        return comment;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Boolean getIsBlurred() {
+        return isBlurred;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+}
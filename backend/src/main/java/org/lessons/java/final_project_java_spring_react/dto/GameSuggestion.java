@@ -0,0 +1,25 @@
+package org.lessons.java.final_project_java_spring_react.dto;
+
+/**
+ * Typeahead entry returned by /api/games/suggest
+ */
+public class GameSuggestion {
+
+    private Long id;
+
+    private String title;
+
+    public GameSuggestion(Long id, String title) {
+        this.id = id;
+        this.title = title;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+}
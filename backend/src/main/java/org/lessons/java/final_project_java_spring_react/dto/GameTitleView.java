@@ -0,0 +1,12 @@
+package org.lessons.java.final_project_java_spring_react.dto;
+
+/**
+ * Spring Data interface projection: just id and title, used to build the
+ * in-memory title structures without loading full Game entities
+ */
+public interface GameTitleView {
+
+    Long getId();
+
+    String getTitle();
+}
@@ -0,0 +1,69 @@
+package org.lessons.java.final_project_java_spring_react.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk key import: counters, timing, the first rejected lines and
+ * the error that stopped the import, if any
+ */
+public class KeyImportResult {
+
+    private long linesRead;
+
+    private long imported;
+
+    private long rejected;
+
+    // Blank lines and the header
+    private long skipped;
+
+    private List<String> rejectedLines;
+
+    private String error;
+
+    private long elapsedMillis;
+
+    public KeyImportResult(long linesRead, long imported, long rejected, long skipped, List<String> rejectedLines,
+            String error, long elapsedMillis) {
+        this.linesRead = linesRead;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.skipped = skipped;
+        this.rejectedLines = rejectedLines;
+        this.error = error;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    // Getters
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public List<String> getRejectedLines() {
+        return rejectedLines;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getKeysPerSecond() {
+        return elapsedMillis > 0 ? imported * 1000 / elapsedMillis : imported;
+    }
+}
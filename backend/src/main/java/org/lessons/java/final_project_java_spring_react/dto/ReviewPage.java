@@ -0,0 +1,36 @@
+package org.lessons.java.final_project_java_spring_react.dto;
+
+import java.util.List;
+
+/**
+ * One page of a game's reviews, the opaque cursor for the following page
+ * (null when this is the last page) and the game's total number of reviews
+ * (first page only, null on the following ones)
+ */
+public class ReviewPage {
+
+    private List<GameReview> items;
+
+    private String nextCursor;
+
+    private Long total;
+
+    public ReviewPage(List<GameReview> items, String nextCursor, Long total) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.total = total;
+    }
+
+    // Getters
+    public List<GameReview> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,10 @@
+package org.lessons.java.final_project_java_spring_react.dto;
+
+/**
+ * Orderings supported by the paginated reviews of a game. Both use the review
+ * id as a tiebreaker so the keyset cursor always points at exactly one row.
+ */
+public enum ReviewSort {
+    NEWEST, // most recent first
+    TOP_RATED // highest rating first, then most recent
+}
@@ -0,0 +1,33 @@
+package org.lessons.java.final_project_java_spring_react.dto;
+
+/**
+ * Number of keys for one game on one platform (unsold or sold depending on the
+ * query), built directly by a grouped JPQL query so no GameKey entity is loaded
+ */
+public class StockCount {
+
+    private Long gameId;
+
+    private Long platformId;
+
+    private Long count;
+
+    public StockCount(Long gameId, Long platformId, Long count) {
+        this.gameId = gameId;
+        this.platformId = platformId;
+        this.count = count;
+    }
+
+    // Getters
+    public Long getGameId() {
+        return gameId;
+    }
+
+    public Long getPlatformId() {
+        return platformId;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+}
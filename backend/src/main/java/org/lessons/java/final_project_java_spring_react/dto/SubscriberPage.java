@@ -0,0 +1,30 @@
+package org.lessons.java.final_project_java_spring_react.dto;
+
+import java.util.List;
+
+import org.lessons.java.final_project_java_spring_react.model.NewsletterSubscriber;
+
+/**
+ * One page of active newsletter subscribers plus the cursor for the
+ * following page (null when this is the last page)
+ */
+public class SubscriberPage {
+
+    private List<NewsletterSubscriber> items;
+
+    private Long nextCursor;
+
+    public SubscriberPage(List<NewsletterSubscriber> items, Long nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<NewsletterSubscriber> getItems() {
+        return items;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+}
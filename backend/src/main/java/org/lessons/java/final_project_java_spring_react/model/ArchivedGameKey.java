@@ -0,0 +1,83 @@
+package org.lessons.java.final_project_java_spring_react.model;
+
+import com.fasterxml.jackson.annotation.JsonBackReference;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A sold key moved out of game_keys by GameKeyArchiver. Keeps the original id
+ * and everything order history needs; rows are written with a native
+ * INSERT ... SELECT, never through JPA.
+ */
+@Entity
+@Table(name = "game_keys_archive", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_game_keys_archive_key_code", columnNames = "key_code")
+})
+public class ArchivedGameKey implements OrderKey {
+
+    @Id
+    private Long id;
+
+    private String keyCode;
+
+    private LocalDateTime soldAt;
+
+    private LocalDateTime archivedAt;
+
+    @ManyToOne
+    @JoinColumn(name = "game_id", nullable = false)
+    private Game game;
+
+    @ManyToOne
+    @JoinColumn(name = "platform_id", nullable = false)
+    private Platform platform;
+
+    @ManyToOne
+    @JoinColumn(name = "order_id")
+    @JsonBackReference("order-archived-keys")
+    private Order order;
+
+    // Constructors
+    public ArchivedGameKey() {
+    }
+
+    // Getters
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String getKeyCode() {
+        return keyCode;
+    }
+
+    // Only sold keys are archived
+    @Override
+    public boolean isSold() {
+        return true;
+    }
+
+    @Override
+    public LocalDateTime getSoldAt() {
+        return soldAt;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    @Override
+    public Game getGame() {
+        return game;
+    }
+
+    @Override
+    public Platform getPlatform() {
+        return platform;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+}
@@ -1,16 +1,24 @@
 package org.lessons.java.final_project_java_spring_react.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
-import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.BatchSize;
 import java.time.LocalDate;
 import java.util.List;
 
 @Entity
-@Table(name = "games")
+@Table(name = "games", indexes = {
+        // Keyset pagination indexes, one per catalog ordering (see GameRepository.findPageBy*)
+        @Index(name = "idx_games_title_id", columnList = "title, id"),
+        @Index(name = "idx_games_price_id", columnList = "price, id"),
+        // Descending orderings scan ids ascending, the index must have the same mixed directions
+        @Index(name = "idx_games_rating_desc_id", columnList = "average_rating DESC, id ASC"),
+        @Index(name = "idx_games_release_desc_id", columnList = "release_date DESC, id ASC")
+})
 public class Game {
 
     @Id
@@ -38,29 +46,42 @@ public class Game {
     @PastOrPresent(message = "Release date cannot be in the future")
     private LocalDate releaseDate;
 
-    // Calculated field - do not set manually, use calculateAverageRating()
+    // Calculated field - do not set manually, use calculateAverageRating() or applyAverageRating()
     private Double averageRating = 0.0;
 
     @Min(value = 0, message = "Discount must be at least 0")
     @Max(value = 100, message = "Discount cannot exceed 100")
     private Integer discountPercentage = 0;
 
+    // Batch-loaded so catalog listings cost one query per 50 games, not one per game
     @ManyToMany
+    @BatchSize(size = 50)
     @JoinTable(name = "game_categories", joinColumns = @JoinColumn(name = "game_id"), inverseJoinColumns = @JoinColumn(name = "category_id"))
     private List<Category> categories;
 
     @ManyToMany
+    @BatchSize(size = 50)
     @JoinTable(name = "game_platforms", joinColumns = @JoinColumn(name = "game_id"), inverseJoinColumns = @JoinColumn(name = "platform_id"))
     private List<Platform> platforms;
 
+    // Not part of the game JSON: served a page at a time by /api/games/{id}/reviews
     @OneToMany(mappedBy = "game", cascade = CascadeType.ALL)
-    @JsonManagedReference("game-reviews")
+    @JsonIgnore
     private List<Review> reviews;
 
     @OneToMany(mappedBy = "game", cascade = CascadeType.ALL)
     @JsonBackReference("game-keys")
     private List<GameKey> gameKeys;
 
+    // Sold keys moved out of game_keys, only read through Order.getAllKeys()
+    @OneToMany(mappedBy = "game", cascade = CascadeType.ALL)
+    @JsonIgnore
+    private List<ArchivedGameKey> archivedGameKeys;
+
+    // Filled by GameService from the game_stock counters, not persisted
+    @Transient
+    private Integer availableStock;
+
     // Constructors
     public Game() {
     }
@@ -160,6 +181,12 @@ public class Game {
         this.discountPercentage = discountPercentage;
     }
 
+    // Price after discount, in cents (see Money)
+    @JsonIgnore
+    public long getFinalPriceCents() {
+        return Money.unitPriceCents(this);
+    }
+
     public List<Platform> getPlatforms() {
         return platforms;
     }
@@ -199,21 +226,23 @@ public class Game {
         }
 
         // Calculate the average
-        double average = sum / reviews.size();
+        applyAverageRating(sum / reviews.size());
+    }
 
+    // Average computed by the database (null when there are no reviews)
+    public void applyAverageRating(Double average) {
         // Round up to 1 decimal place (e.g., 4.51 becomes 4.6, 4.5 stays 4.5)
-        this.averageRating = Math.ceil(average * 10.0) / 10.0;
+        this.averageRating = average != null ? Math.ceil(average * 10.0) / 10.0 : 0.0;
     }
 
-    // Calculate available stock dynamically from unsold game keys
+    // Sellable keys across all platforms (see GameStock)
     // Note: This is included in JSON even though gameKeys has @JsonBackReference
     @JsonProperty("availableStock")
     public Integer getAvailableStock() {
-        if (gameKeys == null || gameKeys.isEmpty()) {
-            return 0;
-        }
-        return (int) gameKeys.stream()
-                .filter(key -> !key.isSold())
-                .count();
+        return availableStock != null ? availableStock : 0;
+    }
+
+    public void setAvailableStock(Integer availableStock) {
+        this.availableStock = availableStock;
     }
 }
@@ -1,14 +1,26 @@
 package org.lessons.java.final_project_java_spring_react.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "game_keys")
-public class GameKey {
+@Table(name = "game_keys", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_game_keys_key_code", columnNames = "key_code")
+}, indexes = {
+        // Serves the key claim queries (GameKeyRepository.findAvailableForUpdateSkipLocked, GameKeyService.claimSql)
+        @Index(name = "idx_game_keys_claim", columnList = "game_id, platform_id, is_sold, order_id, pooled, id"),
+        // Serves the archival scan (GameKeyRepository.findSoldIdsBefore)
+        @Index(name = "idx_game_keys_sold_at", columnList = "is_sold, sold_at"),
+        // Admin key browser filtered by platform (game filters use idx_game_keys_claim)
+        @Index(name = "idx_game_keys_platform_sold", columnList = "platform_id, is_sold, id"),
+        // Serves the reclaim of pooled keys whose instance stopped renewing (GameKeyPool)
+        @Index(name = "idx_game_keys_pool_lease", columnList = "pooled, pool_lease_until")
+})
+public class GameKey implements OrderKey {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -21,6 +33,18 @@ public class GameKey {
 
     private LocalDateTime soldAt;
 
+    // Pre-claimed by GameKeyPool: still sellable, but skipped by the database claim query
+    @JsonIgnore
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    private boolean pooled = false;
+
+    // Instance holding the pooled key, and until when (renewed while that instance runs)
+    @JsonIgnore
+    private String poolOwner;
+
+    @JsonIgnore
+    private LocalDateTime poolLeaseUntil;
+
     @ManyToOne
     @JoinColumn(name = "game_id", nullable = false)
     @JsonManagedReference("game-keys")
@@ -78,6 +102,37 @@ public class GameKey {
         this.soldAt = soldAt;
     }
 
+    public boolean isPooled() {
+        return pooled;
+    }
+
+    public void setPooled(boolean pooled) {
+        this.pooled = pooled;
+    }
+
+    public String getPoolOwner() {
+        return poolOwner;
+    }
+
+    public void setPoolOwner(String poolOwner) {
+        this.poolOwner = poolOwner;
+    }
+
+    public LocalDateTime getPoolLeaseUntil() {
+        return poolLeaseUntil;
+    }
+
+    public void setPoolLeaseUntil(LocalDateTime poolLeaseUntil) {
+        this.poolLeaseUntil = poolLeaseUntil;
+    }
+
+    // Back to the database claim path
+    public void releaseFromPool() {
+        this.pooled = false;
+        this.poolOwner = null;
+        this.poolLeaseUntil = null;
+    }
+
     public Game getGame() {
         return game;
     }
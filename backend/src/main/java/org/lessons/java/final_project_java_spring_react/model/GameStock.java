@@ -0,0 +1,44 @@
+package org.lessons.java.final_project_java_spring_react.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Denormalized count of sellable keys (not sold, not reserved by an order) for
+ * one game on one platform. Maintained by GameKeyService in the same transaction
+ * as every GameKey change and periodically re-derived by GameStockService.
+ */
+@Entity
+@Table(name = "game_stock")
+public class GameStock {
+
+    @EmbeddedId
+    private GameStockId id;
+
+    private long available;
+
+    // Constructors
+    public GameStock() {
+    }
+
+    public GameStock(GameStockId id, long available) {
+        this.id = id;
+        this.available = available;
+    }
+
+    // Getters and Setters
+    public GameStockId getId() {
+        return id;
+    }
+
+    public void setId(GameStockId id) {
+        this.id = id;
+    }
+
+    public long getAvailable() {
+        return available;
+    }
+
+    public void setAvailable(long available) {
+        this.available = available;
+    }
+}
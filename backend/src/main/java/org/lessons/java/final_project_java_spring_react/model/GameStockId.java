@@ -0,0 +1,51 @@
+package org.lessons.java.final_project_java_spring_react.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+@Embeddable
+public class GameStockId implements Serializable {
+
+    @Column(name = "game_id")
+    private Long gameId;
+
+    @Column(name = "platform_id")
+    private Long platformId;
+
+    // Constructors
+    public GameStockId() {
+    }
+
+    public GameStockId(Long gameId, Long platformId) {
+        this.gameId = gameId;
+        this.platformId = platformId;
+    }
+
+    // Getters
+    public Long getGameId() {
+        return gameId;
+    }
+
+    public Long getPlatformId() {
+        return platformId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GameStockId other)) {
+            return false;
+        }
+        return Objects.equals(gameId, other.gameId) && Objects.equals(platformId, other.platformId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(gameId, platformId);
+    }
+}
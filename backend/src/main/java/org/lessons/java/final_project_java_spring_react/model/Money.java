@@ -0,0 +1,36 @@
+package org.lessons.java.final_project_java_spring_react.model;
+
+import java.math.BigDecimal;
+
+/**
+ * The one place prices are computed, on whole euro cents held in a long.
+ *
+ * A unit price is the catalog price minus its percentage discount, rounded
+ * half-up to the cent; an order total is the sum of its unit prices. Stripe is
+ * charged these exact unit amounts, so Order.totalPrice always matches the
+ * payment. BigDecimal is only created at the edges (toAmount).
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    // Catalog prices are stored as Double euros with at most 2 decimals
+    public static long toCents(Double price) {
+        return price != null ? Math.round(price * 100) : 0;
+    }
+
+    public static long discountedCents(long cents, Integer discountPercentage) {
+        int discount = discountPercentage != null ? Math.max(0, Math.min(100, discountPercentage)) : 0;
+        // cents * (100 - discount) / 100, rounded half-up (amounts are never negative)
+        return (cents * (100 - discount) + 50) / 100;
+    }
+
+    public static long unitPriceCents(Game game) {
+        return discountedCents(toCents(game.getPrice()), game.getDiscountPercentage());
+    }
+
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
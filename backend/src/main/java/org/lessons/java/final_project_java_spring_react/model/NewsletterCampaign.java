@@ -0,0 +1,172 @@
+package org.lessons.java.final_project_java_spring_react.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One newsletter send, run in the background by NewsletterSender. Progress
+ * (cursor over subscriber ids and counters) is saved after every page, so a
+ * send interrupted by a crash resumes where it stopped.
+ */
+@Entity
+@Table(name = "newsletter_campaigns")
+public class NewsletterCampaign {
+
+    public static final String QUEUED = "QUEUED";
+
+    public static final String SENDING = "SENDING";
+
+    public static final String COMPLETED = "COMPLETED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "LONGTEXT")
+    @JsonIgnore
+    private String htmlContent;
+
+    @Column(nullable = false)
+    private String status = QUEUED;
+
+    // Active subscribers when the campaign was created (the list may change while sending)
+    private long totalRecipients;
+
+    private long sentCount;
+
+    private long failedCount;
+
+    // Subscribers up to this id have been handled
+    private long lastSubscriberId;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    // The instance sending the campaign renews this; once it lapses another instance takes over
+    @JsonIgnore
+    private LocalDateTime leaseUntil;
+
+    // Constructors
+    public NewsletterCampaign() {
+    }
+
+    public NewsletterCampaign(String subject, String htmlContent, long totalRecipients) {
+        this.subject = subject;
+        this.htmlContent = htmlContent;
+        this.totalRecipients = totalRecipients;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getHtmlContent() {
+        return htmlContent;
+    }
+
+    public void setHtmlContent(String htmlContent) {
+        this.htmlContent = htmlContent;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getTotalRecipients() {
+        return totalRecipients;
+    }
+
+    public void setTotalRecipients(long totalRecipients) {
+        this.totalRecipients = totalRecipients;
+    }
+
+    public long getSentCount() {
+        return sentCount;
+    }
+
+    public void setSentCount(long sentCount) {
+        this.sentCount = sentCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public void setFailedCount(long failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    public long getLastSubscriberId() {
+        return lastSubscriberId;
+    }
+
+    public void setLastSubscriberId(long lastSubscriberId) {
+        this.lastSubscriberId = lastSubscriberId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    // Share of recipients handled so far (sent or failed), 0 to 100
+    public int getProgressPercent() {
+        if (COMPLETED.equals(status)) {
+            return 100;
+        }
+        return totalRecipients > 0 ? (int) Math.min(100, (sentCount + failedCount) * 100 / totalRecipients) : 0;
+    }
+}
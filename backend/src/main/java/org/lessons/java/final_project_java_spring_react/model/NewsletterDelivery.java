@@ -0,0 +1,73 @@
+package org.lessons.java.final_project_java_spring_react.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a newsletter campaign for one subscriber. Rows are written with
+ * JDBC batch inserts by NewsletterSender; a resumed campaign skips every
+ * subscriber that already has one.
+ */
+@Entity
+@Table(name = "newsletter_deliveries", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_newsletter_deliveries_campaign_subscriber", columnNames = { "campaign_id",
+                "subscriber_id" })
+})
+public class NewsletterDelivery {
+
+    public static final String SENT = "SENT";
+
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "campaign_id", nullable = false)
+    private Long campaignId;
+
+    @Column(name = "subscriber_id", nullable = false)
+    private Long subscriberId;
+
+    private String email;
+
+    private String status;
+
+    @Column(length = 1024)
+    private String error;
+
+    private LocalDateTime sentAt;
+
+    // Constructors
+    public NewsletterDelivery() {
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getCampaignId() {
+        return campaignId;
+    }
+
+    public Long getSubscriberId() {
+        return subscriberId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+}
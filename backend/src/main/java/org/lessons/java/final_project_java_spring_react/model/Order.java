@@ -1,15 +1,22 @@
 package org.lessons.java.final_project_java_spring_react.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Serves the reservation reaper (OrderRepository.findExpiredPendingIds)
+        @Index(name = "idx_orders_status_reserved", columnList = "payment_status, reserved_until"),
+        // Checkout success status reads and webhook processing look orders up by Stripe session
+        @Index(name = "idx_orders_stripe_session", columnList = "stripe_payment_intent_id")
+})
 public class Order {
 
     @Id
@@ -19,7 +26,8 @@ public class Order {
     // Auto-generated by @PrePersist when order is first saved to database
     private LocalDateTime orderDate;
 
-    // Calculated field - do not set manually, use calculateTotalPrice()
+    // Set once: the quoted amount for Stripe checkouts (what Stripe charged),
+    // calculateTotalPrice() for other orders. Never recalculated afterwards.
     private BigDecimal totalPrice;
 
     @NotBlank(message = "Payment status is required")
@@ -32,6 +40,9 @@ public class Order {
     // Stripe payment intent ID for tracking
     private String stripePaymentIntentId;
 
+    // PENDING orders hold their keys until then, afterwards ReservationReaper releases them
+    private LocalDateTime reservedUntil;
+
     @ManyToOne
     @JoinColumn(name = "user_id", nullable = false)
     @JsonBackReference("user-orders")
@@ -40,6 +51,11 @@ public class Order {
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL)
     private List<GameKey> gameKeys;
 
+    // Keys sold long ago live in game_keys_archive (see GameKeyArchiver)
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL)
+    @JsonManagedReference("order-archived-keys")
+    private List<ArchivedGameKey> archivedGameKeys;
+
     // Constructors
     public Order() {
     }
@@ -74,6 +90,10 @@ public class Order {
         return totalPrice;
     }
 
+    public void setTotalPrice(BigDecimal totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+
     public String getPaymentStatus() {
         return paymentStatus;
     }
@@ -98,6 +118,14 @@ public class Order {
         this.stripePaymentIntentId = stripePaymentIntentId;
     }
 
+    public LocalDateTime getReservedUntil() {
+        return reservedUntil;
+    }
+
+    public void setReservedUntil(LocalDateTime reservedUntil) {
+        this.reservedUntil = reservedUntil;
+    }
+
     public User getUser() {
         return user;
     }
@@ -114,29 +142,29 @@ public class Order {
         this.gameKeys = gameKeys;
     }
 
-    // Calculate total price from game keys with discounts applied
-    public void calculateTotalPrice() {
-        if (gameKeys == null || gameKeys.isEmpty()) {
-            this.totalPrice = BigDecimal.ZERO;
-            return;
-        }
-
-        BigDecimal total = BigDecimal.ZERO;
-        for (GameKey key : gameKeys) {
-            Game game = key.getGame();
-            BigDecimal gamePrice = BigDecimal.valueOf(game.getPrice());
-
-            // Apply discount if present
-            if (game.getDiscountPercentage() != null && game.getDiscountPercentage() > 0) {
-                BigDecimal discount = BigDecimal.valueOf(game.getDiscountPercentage())
-                        .divide(BigDecimal.valueOf(100));
-                BigDecimal discountAmount = gamePrice.multiply(discount);
-                gamePrice = gamePrice.subtract(discountAmount);
-            }
+    public List<ArchivedGameKey> getArchivedGameKeys() {
+        return archivedGameKeys;
+    }
 
-            total = total.add(gamePrice);
+    // Unified read path for order history: live keys first, then archived ones
+    @JsonIgnore
+    public List<OrderKey> getAllKeys() {
+        List<OrderKey> keys = new ArrayList<>();
+        if (gameKeys != null) {
+            keys.addAll(gameKeys);
         }
+        if (archivedGameKeys != null) {
+            keys.addAll(archivedGameKeys);
+        }
+        return keys;
+    }
 
-        this.totalPrice = total.setScale(2, RoundingMode.HALF_UP);
+    // Calculate total price from game keys with discounts applied (see Money)
+    public void calculateTotalPrice() {
+        long totalCents = 0;
+        for (OrderKey key : getAllKeys()) {
+            totalCents += Money.unitPriceCents(key.getGame());
+        }
+        this.totalPrice = Money.toAmount(totalCents);
     }
 }
@@ -0,0 +1,22 @@
+package org.lessons.java.final_project_java_spring_react.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A key as seen from an order, whether it still lives in game_keys or has
+ * been moved to game_keys_archive. Use Order.getAllKeys() to read order history.
+ */
+public interface OrderKey {
+
+    Long getId();
+
+    String getKeyCode();
+
+    boolean isSold();
+
+    LocalDateTime getSoldAt();
+
+    Game getGame();
+
+    Platform getPlatform();
+}
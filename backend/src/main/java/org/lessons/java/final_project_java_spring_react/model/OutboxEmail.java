@@ -0,0 +1,140 @@
+package org.lessons.java.final_project_java_spring_react.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An email to send, written in the same transaction as the user or order it
+ * is about (transactional outbox) and sent later by EmailOutbox. Only the type
+ * and the referenced row are stored: the message is rendered at send time.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+        // Serves EmailOutbox.dispatch (OutboxEmailRepository.findDueForUpdate)
+        @Index(name = "idx_email_outbox_status_next", columnList = "status, next_attempt_at")
+})
+public class OutboxEmail {
+
+    public static final String WELCOME = "WELCOME";
+
+    public static final String ORDER_CONFIRMATION = "ORDER_CONFIRMATION";
+
+    // referenceId is the newsletter subscriber id
+    public static final String NEWSLETTER_WELCOME = "NEWSLETTER_WELCOME";
+
+    public static final String PENDING = "PENDING";
+
+    public static final String SENT = "SENT";
+
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String type;
+
+    // User id for WELCOME, order id for ORDER_CONFIRMATION
+    @Column(nullable = false)
+    private Long referenceId;
+
+    @Column(nullable = false)
+    private String status = PENDING;
+
+    private int attempts;
+
+    @Column(length = 1024)
+    private String lastError;
+
+    private LocalDateTime createdAt;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    private LocalDateTime sentAt;
+
+    // Constructors
+    public OutboxEmail() {
+    }
+
+    public OutboxEmail(String type, Long referenceId) {
+        this.type = type;
+        this.referenceId = referenceId;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getReferenceId() {
+        return referenceId;
+    }
+
+    public void setReferenceId(Long referenceId) {
+        this.referenceId = referenceId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(LocalDateTime sentAt) {
+        this.sentAt = sentAt;
+    }
+}
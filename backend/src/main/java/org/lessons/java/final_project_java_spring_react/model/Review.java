@@ -6,7 +6,11 @@ import jakarta.validation.constraints.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+        // Serve the paginated reviews of a game (ReviewRepository.findPage*)
+        @Index(name = "idx_reviews_game_created", columnList = "game_id, created_at, id"),
+        @Index(name = "idx_reviews_game_rating", columnList = "game_id, rating, id")
+})
 public class Review {
 
     @Id
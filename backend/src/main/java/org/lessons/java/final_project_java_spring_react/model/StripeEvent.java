@@ -0,0 +1,142 @@
+package org.lessons.java.final_project_java_spring_react.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A Stripe webhook event waiting to be (or already) applied, stored before the
+ * webhook is acknowledged so no event is lost on a crash. The primary key is
+ * Stripe's own event id: redeliveries of the same event are ignored.
+ */
+@Entity
+@Table(name = "stripe_events", indexes = {
+        // Serves StripeEventQueue.poll (StripeEventRepository.findDueIds)
+        @Index(name = "idx_stripe_events_status_next", columnList = "status, next_attempt_at")
+})
+public class StripeEvent {
+
+    public static final String PENDING = "PENDING";
+
+    public static final String PROCESSED = "PROCESSED";
+
+    public static final String FAILED = "FAILED";
+
+    @Id
+    private String id;
+
+    private String type;
+
+    private String sessionId;
+
+    private String paymentStatus;
+
+    private String paymentMethod;
+
+    @Column(nullable = false)
+    private String status = PENDING;
+
+    private int attempts;
+
+    @Column(length = 1024)
+    private String lastError;
+
+    private LocalDateTime receivedAt;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    private LocalDateTime processedAt;
+
+    // Constructors
+    public StripeEvent() {
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public void setPaymentStatus(String paymentStatus) {
+        this.paymentStatus = paymentStatus;
+    }
+
+    public String getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public void setPaymentMethod(String paymentMethod) {
+        this.paymentMethod = paymentMethod;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getReceivedAt() {
+        return receivedAt;
+    }
+
+    public void setReceivedAt(LocalDateTime receivedAt) {
+        this.receivedAt = receivedAt;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+
+    public void setProcessedAt(LocalDateTime processedAt) {
+        this.processedAt = processedAt;
+    }
+}
@@ -0,0 +1,33 @@
+package org.lessons.java.final_project_java_spring_react.repository;
+
+import org.lessons.java.final_project_java_spring_react.dto.StockCount;
+import org.lessons.java.final_project_java_spring_react.model.ArchivedGameKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedGameKeyRepository extends JpaRepository<ArchivedGameKey, Long> {
+
+    boolean existsByKeyCode(String keyCode);
+
+    // Copy then delete, both inside the archiver's chunk transaction
+    @Modifying
+    @Query(value = "INSERT INTO game_keys_archive (id, key_code, sold_at, archived_at, game_id, platform_id, order_id) "
+            + "SELECT id, key_code, sold_at, :archivedAt, game_id, platform_id, order_id FROM game_keys "
+            + "WHERE id IN (:ids) AND is_sold = true", nativeQuery = true)
+    int copyFromGameKeys(Collection<Long> ids, LocalDateTime archivedAt);
+
+    @Modifying
+    @Query(value = "DELETE FROM game_keys WHERE id IN (:ids) AND is_sold = true", nativeQuery = true)
+    int deleteFromGameKeys(Collection<Long> ids);
+
+    // Archived sales per (game, platform), added to the live ones for suggestion weights
+    @Query("SELECT new org.lessons.java.final_project_java_spring_react.dto.StockCount(ak.game.id, ak.platform.id, COUNT(ak)) FROM ArchivedGameKey ak GROUP BY ak.game.id, ak.platform.id")
+    List<StockCount> countGroupedByGameAndPlatform();
+}
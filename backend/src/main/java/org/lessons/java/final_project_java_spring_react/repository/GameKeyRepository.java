@@ -1,22 +1,106 @@
 package org.lessons.java.final_project_java_spring_react.repository;
 
+import org.lessons.java.final_project_java_spring_react.dto.GameKeyRow;
+import org.lessons.java.final_project_java_spring_react.dto.StockCount;
 import org.lessons.java.final_project_java_spring_react.model.GameKey;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface GameKeyRepository extends JpaRepository<GameKey, Long> {
-    List<GameKey> findByGameIdAndPlatformIdAndIsSoldFalse(Long gameId, Long platformId);
+    // "Available" = not sold and not reserved by a pending order
+    List<GameKey> findByGameIdAndPlatformIdAndIsSoldFalseAndOrderIsNull(Long gameId, Long platformId);
+
+    Optional<GameKey> findFirstByGameIdAndPlatformIdAndIsSoldFalseAndOrderIsNull(Long gameId, Long platformId);
+
+    long countByGameIdAndPlatformIdAndIsSoldFalseAndOrderIsNull(Long gameId, Long platformId);
+
+    // Claims up to limit available keys with FOR UPDATE SKIP LOCKED (lock timeout -2):
+    // concurrent buyers each get different rows instead of queueing on the same one.
+    // Dialects without SKIP LOCKED (e.g. H2) fall back to a plain FOR UPDATE.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT gk FROM GameKey gk WHERE gk.game.id = :gameId AND gk.platform.id = :platformId AND gk.isSold = false AND gk.order IS NULL AND gk.pooled = false ORDER BY gk.id")
+    List<GameKey> findAvailableForUpdateSkipLocked(Long gameId, Long platformId, Limit limit);
+
+    // Pooled keys locked before being claimed, so an admin edit or a pool release cannot
+    // change them in between. Game and platform fetched in the same statement.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT gk FROM GameKey gk JOIN FETCH gk.game JOIN FETCH gk.platform WHERE gk.id IN :ids ORDER BY gk.id")
+    List<GameKey> findAllForUpdateByIdIn(Collection<Long> ids);
+
+    // Admin edits lock the key too: a plain read could overwrite a concurrent checkout's claim
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT gk FROM GameKey gk WHERE gk.id = :id")
+    Optional<GameKey> findByIdForUpdate(Long id);
+
+    // Keys sold before the cutoff, oldest ids first, for GameKeyArchiver
+    @Query("SELECT gk.id FROM GameKey gk WHERE gk.isSold = true AND gk.soldAt < :cutoff ORDER BY gk.id")
+    List<Long> findSoldIdsBefore(LocalDateTime cutoff, Limit limit);
+
+    // Hand pre-claimed keys back to the database claim path (GameKeyPool).
+    // Only the owner's rows: another instance may have taken them over meanwhile.
+    @Transactional
+    @Modifying
+    @Query("UPDATE GameKey gk SET gk.pooled = false, gk.poolOwner = null, gk.poolLeaseUntil = null "
+            + "WHERE gk.id IN :ids AND gk.pooled = true AND gk.poolOwner = :owner")
+    int unpool(Collection<Long> ids, String owner);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE GameKey gk SET gk.poolLeaseUntil = :leaseUntil WHERE gk.pooled = true AND gk.poolOwner = :owner")
+    int renewPoolLease(String owner, LocalDateTime leaseUntil);
+
+    // Keys pooled by an instance that stopped renewing its lease (crashed, killed)
+    @Transactional
+    @Modifying
+    @Query("UPDATE GameKey gk SET gk.pooled = false, gk.poolOwner = null, gk.poolLeaseUntil = null "
+            + "WHERE gk.pooled = true AND (gk.poolLeaseUntil IS NULL OR gk.poolLeaseUntil < :now)")
+    int unpoolExpired(LocalDateTime now);
+
+    // Admin key browser: every filter is optional (null = any). gk.order.id reads
+    // the order_id column, the order itself is never joined.
+    @Query(value = "SELECT new org.lessons.java.final_project_java_spring_react.dto.GameKeyRow(gk.id, gk.keyCode, g.title, p.name, gk.isSold, gk.soldAt, gk.order.id) "
+            + "FROM GameKey gk JOIN gk.game g JOIN gk.platform p "
+            + "WHERE (:gameId IS NULL OR g.id = :gameId) AND (:platformId IS NULL OR p.id = :platformId) "
+            + "AND (:sold IS NULL OR gk.isSold = :sold) "
+            + "AND (:soldFrom IS NULL OR gk.soldAt >= :soldFrom) AND (:soldTo IS NULL OR gk.soldAt < :soldTo) "
+            + "AND (:search IS NULL OR LOWER(g.title) LIKE LOWER(CONCAT('%', :search, '%')) OR LOWER(gk.keyCode) LIKE LOWER(CONCAT('%', :search, '%')))",
+            countQuery = "SELECT COUNT(gk) FROM GameKey gk JOIN gk.game g "
+            + "WHERE (:gameId IS NULL OR g.id = :gameId) AND (:platformId IS NULL OR gk.platform.id = :platformId) "
+            + "AND (:sold IS NULL OR gk.isSold = :sold) "
+            + "AND (:soldFrom IS NULL OR gk.soldAt >= :soldFrom) AND (:soldTo IS NULL OR gk.soldAt < :soldTo) "
+            + "AND (:search IS NULL OR LOWER(g.title) LIKE LOWER(CONCAT('%', :search, '%')) OR LOWER(gk.keyCode) LIKE LOWER(CONCAT('%', :search, '%')))")
+    Page<GameKeyRow> browse(Long gameId, Long platformId, Boolean sold, LocalDateTime soldFrom,
+            LocalDateTime soldTo, String search, Pageable pageable);
+
+    // Available keys per (game, platform) counted from the rows, used to reconcile game_stock
+    @Query("SELECT new org.lessons.java.final_project_java_spring_react.dto.StockCount(gk.game.id, gk.platform.id, COUNT(gk)) FROM GameKey gk WHERE gk.isSold = false AND gk.order IS NULL GROUP BY gk.game.id, gk.platform.id")
+    List<StockCount> countAvailableGroupedByGameAndPlatform();
 
-    Optional<GameKey> findFirstByGameIdAndPlatformIdAndIsSoldFalse(Long gameId, Long platformId);
+    // Sales per (game, platform), used as popularity weight for suggestions
+    @Query("SELECT new org.lessons.java.final_project_java_spring_react.dto.StockCount(gk.game.id, gk.platform.id, COUNT(gk)) FROM GameKey gk WHERE gk.isSold = true GROUP BY gk.game.id, gk.platform.id")
+    List<StockCount> countSoldGroupedByGameAndPlatform();
 
-    Integer countByGameIdAndIsSoldFalse(Long gameId);
+    // Cheap check for new sales (both served by idx_game_keys_sold_at alone)
+    long countByIsSoldTrue();
 
-    @Query("SELECT gk FROM GameKey gk WHERE LOWER(gk.game.title) LIKE LOWER(CONCAT('%', :search, '%')) OR LOWER(gk.keyCode) LIKE LOWER(CONCAT('%', :search, '%'))")
-    List<GameKey> searchByGameTitleOrKeyCode(@Param("search") String search);
+    @Query("SELECT MAX(gk.soldAt) FROM GameKey gk WHERE gk.isSold = true")
+    LocalDateTime findLastSoldAt();
 }
@@ -1,12 +1,14 @@
 package org.lessons.java.final_project_java_spring_react.repository;
 
+import org.lessons.java.final_project_java_spring_react.dto.GameTitleView;
 import org.lessons.java.final_project_java_spring_react.model.Game;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface GameRepository extends JpaRepository<Game, Long> {
@@ -14,16 +16,23 @@ public interface GameRepository extends JpaRepository<Game, Long> {
 
     List<Game> findByDiscountPercentageGreaterThan(Integer discount);
 
-    // Custom queries to eagerly fetch gameKeys for accurate stock calculation
-    @Query("SELECT DISTINCT g FROM Game g LEFT JOIN FETCH g.gameKeys")
-    List<Game> findAllWithKeys();
+    List<GameTitleView> findAllProjectedBy();
 
-    @Query("SELECT DISTINCT g FROM Game g LEFT JOIN FETCH g.gameKeys WHERE LOWER(g.title) LIKE LOWER(CONCAT('%', :title, '%'))")
-    List<Game> findByTitleContainingIgnoreCaseWithKeys(String title);
+    // Keyset pagination: each query seeks past the last (sort value, id) seen, so page N
+    // costs the same as page 1. minDiscount = -1 means the whole catalog (0 for hot deals).
+    @Query("SELECT g FROM Game g WHERE g.discountPercentage > :minDiscount AND (g.title > :title OR (g.title = :title AND g.id > :id)) ORDER BY g.title ASC, g.id ASC")
+    List<Game> findPageByTitle(Integer minDiscount, String title, Long id, Limit limit);
 
-    @Query("SELECT DISTINCT g FROM Game g LEFT JOIN FETCH g.gameKeys WHERE g.id = :id")
-    Optional<Game> findByIdWithKeys(Long id);
+    @Query("SELECT g FROM Game g WHERE g.discountPercentage > :minDiscount AND (g.price > :price OR (g.price = :price AND g.id > :id)) ORDER BY g.price ASC, g.id ASC")
+    List<Game> findPageByPrice(Integer minDiscount, Double price, Long id, Limit limit);
 
-    @Query("SELECT DISTINCT g FROM Game g LEFT JOIN FETCH g.gameKeys WHERE g.discountPercentage > :discount")
-    List<Game> findByDiscountPercentageGreaterThanWithKeys(Integer discount);
+    @Query("SELECT g FROM Game g WHERE g.discountPercentage > :minDiscount AND (g.averageRating < :rating OR (g.averageRating = :rating AND g.id > :id)) ORDER BY g.averageRating DESC, g.id ASC")
+    List<Game> findPageByRating(Integer minDiscount, Double rating, Long id, Limit limit);
+
+    // Dated games only (NULL never matches the seek), undated ones follow from findPageUndated
+    @Query("SELECT g FROM Game g WHERE g.discountPercentage > :minDiscount AND (g.releaseDate < :releaseDate OR (g.releaseDate = :releaseDate AND g.id > :id)) ORDER BY g.releaseDate DESC, g.id ASC")
+    List<Game> findPageByReleaseDate(Integer minDiscount, LocalDate releaseDate, Long id, Limit limit);
+
+    @Query("SELECT g FROM Game g WHERE g.discountPercentage > :minDiscount AND g.releaseDate IS NULL AND g.id > :id ORDER BY g.id ASC")
+    List<Game> findPageUndated(Integer minDiscount, Long id, Limit limit);
 }
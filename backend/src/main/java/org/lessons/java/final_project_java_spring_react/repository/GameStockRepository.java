@@ -0,0 +1,44 @@
+package org.lessons.java.final_project_java_spring_react.repository;
+
+import org.lessons.java.final_project_java_spring_react.model.GameStock;
+import org.lessons.java.final_project_java_spring_react.model.GameStockId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.LockModeType;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface GameStockRepository extends JpaRepository<GameStock, GameStockId> {
+
+    List<GameStock> findByIdGameId(Long gameId);
+
+    List<GameStock> findByIdGameIdIn(Collection<Long> gameIds);
+
+    @Query("SELECT COALESCE(SUM(s.available), 0) FROM GameStock s WHERE s.id.gameId = :gameId")
+    long sumAvailableByGameId(Long gameId);
+
+    // Row lock used by the reconciliation so it never races a concurrent key change
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM GameStock s WHERE s.id = :id")
+    Optional<GameStock> findByIdForUpdate(GameStockId id);
+
+    // Atomic upsert: concurrent transactions only serialize on this single row
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO game_stock (game_id, platform_id, available) VALUES (:gameId, :platformId, :delta) "
+            + "ON DUPLICATE KEY UPDATE available = available + :delta", nativeQuery = true)
+    int adjust(Long gameId, Long platformId, long delta);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM GameStock s WHERE s.id.gameId = :gameId")
+    int deleteByGameId(Long gameId);
+}
@@ -0,0 +1,49 @@
+package org.lessons.java.final_project_java_spring_react.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.lessons.java.final_project_java_spring_react.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByUserIdAndIdempotencyKey(Integer userId, String idempotencyKey);
+
+    // Plain INSERT (not save/merge) so a concurrent claim fails on uk_idempotency_keys_user_key
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (user_id, idempotency_key, request_hash, created_at, expires_at) "
+            + "VALUES (:userId, :idempotencyKey, :requestHash, :createdAt, :expiresAt)", nativeQuery = true)
+    int claim(Integer userId, String idempotencyKey, String requestHash, LocalDateTime createdAt,
+            LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.sessionId = :sessionId, r.sessionUrl = :sessionUrl, "
+            + "r.orderId = :orderId, r.expiresAt = :expiresAt "
+            + "WHERE r.userId = :userId AND r.idempotencyKey = :idempotencyKey")
+    int complete(Integer userId, String idempotencyKey, String sessionId, String sessionUrl, Long orderId,
+            LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.userId = :userId AND r.idempotencyKey = :idempotencyKey")
+    int release(Integer userId, String idempotencyKey);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.userId = :userId AND r.idempotencyKey = :idempotencyKey "
+            + "AND r.expiresAt < :now")
+    int deleteIfExpired(Integer userId, String idempotencyKey, LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+}
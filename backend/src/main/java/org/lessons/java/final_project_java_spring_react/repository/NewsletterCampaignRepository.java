@@ -0,0 +1,40 @@
+package org.lessons.java.final_project_java_spring_react.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.lessons.java.final_project_java_spring_react.model.NewsletterCampaign;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface NewsletterCampaignRepository extends JpaRepository<NewsletterCampaign, Long> {
+
+    // Campaigns nobody is sending: new ones, or ones whose sender stopped renewing its lease
+    @Query("SELECT c.id FROM NewsletterCampaign c WHERE c.status <> 'COMPLETED' AND (c.leaseUntil IS NULL OR c.leaseUntil < :now) ORDER BY c.id")
+    List<Long> findUnclaimedIds(LocalDateTime now);
+
+    // Atomic claim/renewal: only one instance at a time can hold the lease
+    @Transactional
+    @Modifying
+    @Query("UPDATE NewsletterCampaign c SET c.leaseUntil = :leaseUntil WHERE c.id = :id AND c.status <> 'COMPLETED' "
+            + "AND (c.leaseUntil IS NULL OR c.leaseUntil < :now)")
+    int claim(Long id, LocalDateTime now, LocalDateTime leaseUntil);
+
+    // Extends the lease of a campaign being sent, never shortens it
+    @Transactional
+    @Modifying
+    @Query("UPDATE NewsletterCampaign c SET c.leaseUntil = :leaseUntil WHERE c.id = :id AND c.status <> 'COMPLETED' "
+            + "AND (c.leaseUntil IS NULL OR c.leaseUntil < :leaseUntil)")
+    int renewLease(Long id, LocalDateTime leaseUntil);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE NewsletterCampaign c SET c.status = 'SENDING', c.lastSubscriberId = :lastSubscriberId, "
+            + "c.sentCount = c.sentCount + :sent, c.failedCount = c.failedCount + :failed, c.leaseUntil = :leaseUntil "
+            + "WHERE c.id = :id")
+    int saveProgress(Long id, long lastSubscriberId, long sent, long failed, LocalDateTime leaseUntil);
+}
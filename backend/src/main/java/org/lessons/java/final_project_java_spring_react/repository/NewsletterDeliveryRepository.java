@@ -0,0 +1,17 @@
+package org.lessons.java.final_project_java_spring_react.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.lessons.java.final_project_java_spring_react.model.NewsletterDelivery;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface NewsletterDeliveryRepository extends JpaRepository<NewsletterDelivery, Long> {
+
+    // Subscribers of a page already handled before a crash
+    @Query("SELECT d.subscriberId FROM NewsletterDelivery d WHERE d.campaignId = :campaignId AND d.subscriberId IN :subscriberIds")
+    List<Long> findHandledSubscriberIds(Long campaignId, Collection<Long> subscriberIds);
+}
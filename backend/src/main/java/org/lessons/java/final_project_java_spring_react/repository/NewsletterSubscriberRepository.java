@@ -2,17 +2,36 @@ package org.lessons.java.final_project_java_spring_react.repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.lessons.java.final_project_java_spring_react.model.NewsletterSubscriber;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface NewsletterSubscriberRepository extends JpaRepository<NewsletterSubscriber, Long> {
 
     Optional<NewsletterSubscriber> findByEmail(String email);
 
-    List<NewsletterSubscriber> findByActiveTrue(); // Only active subscribers
+    long countByActiveTrue();
+
+    // Keyset page of active subscribers (NewsletterSender, admin listing)
+    @Query("SELECT s FROM NewsletterSubscriber s WHERE s.active = true AND s.id > :afterId ORDER BY s.id")
+    List<NewsletterSubscriber> findActivePage(Long afterId, Limit limit);
+
+    // Every subscriber, streamed row by row (MySQL needs fetch size Integer.MIN_VALUE).
+    // Must be consumed inside a transaction and closed.
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "-2147483648"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT s FROM NewsletterSubscriber s ORDER BY s.id")
+    Stream<NewsletterSubscriber> streamAll();
 
     boolean existsByEmail(String email);
 }
@@ -1,11 +1,16 @@
 package org.lessons.java.final_project_java_spring_react.repository;
 
 import org.lessons.java.final_project_java_spring_react.model.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +22,14 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     Optional<Order> findByStripePaymentIntentId(String stripePaymentIntentId);
 
+    // Serializes payment, cancellation and expiry of the same order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(Long id);
+
+    @Query("SELECT o.id FROM Order o WHERE o.paymentStatus = 'PENDING' AND o.reservedUntil < :now ORDER BY o.reservedUntil")
+    List<Long> findExpiredPendingIds(LocalDateTime now, Limit limit);
+
     @Query("SELECT o FROM Order o WHERE LOWER(o.user.email) LIKE LOWER(CONCAT('%', :search, '%')) OR LOWER(o.user.username) LIKE LOWER(CONCAT('%', :search, '%'))")
     List<Order> searchByUserEmailOrUsername(@Param("search") String search);
 }
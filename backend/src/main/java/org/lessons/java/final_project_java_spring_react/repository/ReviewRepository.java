@@ -1,11 +1,13 @@
 package org.lessons.java.final_project_java_spring_react.repository;
 
 import org.lessons.java.final_project_java_spring_react.model.Review;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -14,6 +16,19 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
 
     List<Review> findByUserId(Integer userId);
 
+    long countByGameId(Long gameId);
+
+    // Null when the game has no reviews
+    @Query("SELECT AVG(r.rating) FROM Review r WHERE r.game.id = :gameId")
+    Double findAverageRatingByGameId(Long gameId);
+
+    // Keyset pages of a game's reviews (see ReviewSort), authors fetched in the same query
+    @Query("SELECT r FROM Review r JOIN FETCH r.user WHERE r.game.id = :gameId AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findPageNewest(Long gameId, LocalDateTime createdAt, Long id, Limit limit);
+
+    @Query("SELECT r FROM Review r JOIN FETCH r.user WHERE r.game.id = :gameId AND (r.rating < :rating OR (r.rating = :rating AND r.id < :id)) ORDER BY r.rating DESC, r.id DESC")
+    List<Review> findPageTopRated(Long gameId, Integer rating, Long id, Limit limit);
+
     @Query("SELECT r FROM Review r WHERE LOWER(r.game.title) LIKE LOWER(CONCAT('%', :search, '%')) OR LOWER(r.user.username) LIKE LOWER(CONCAT('%', :search, '%'))")
     List<Review> searchByCommentOrGameOrUser(@Param("search") String search);
 }
@@ -0,0 +1,40 @@
+package org.lessons.java.final_project_java_spring_react.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.lessons.java.final_project_java_spring_react.model.StripeEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface StripeEventRepository extends JpaRepository<StripeEvent, String> {
+
+    // INSERT IGNORE: a redelivered event (same id) is a no-op and returns 0
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO stripe_events (id, type, session_id, payment_status, payment_method, status, "
+            + "attempts, received_at, next_attempt_at) VALUES (:id, :type, :sessionId, :paymentStatus, :paymentMethod, "
+            + "'PENDING', 0, :receivedAt, :receivedAt)", nativeQuery = true)
+    int enqueue(String id, String type, String sessionId, String paymentStatus, String paymentMethod,
+            LocalDateTime receivedAt);
+
+    // SKIP LOCKED: an event being applied by another worker or instance is skipped, not waited for
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM StripeEvent e WHERE e.id = :id")
+    Optional<StripeEvent> findByIdForUpdateSkipLocked(String id);
+
+    @Query("SELECT e.id FROM StripeEvent e WHERE e.status = 'PENDING' AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt")
+    List<String> findDueIds(LocalDateTime now, Limit limit);
+}
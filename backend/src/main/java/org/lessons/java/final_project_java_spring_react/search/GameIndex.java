@@ -0,0 +1,14 @@
+package org.lessons.java.final_project_java_spring_react.search;
+
+import org.lessons.java.final_project_java_spring_react.model.Game;
+
+/**
+ * In-memory structure derived from the games table. GameService notifies every
+ * implementation after a game is saved or deleted.
+ */
+public interface GameIndex {
+
+    void index(Game game);
+
+    void remove(Long gameId);
+}
@@ -0,0 +1,214 @@
+package org.lessons.java.final_project_java_spring_react.search;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.lessons.java.final_project_java_spring_react.model.Category;
+import org.lessons.java.final_project_java_spring_react.model.Game;
+import org.lessons.java.final_project_java_spring_react.model.Platform;
+import org.lessons.java.final_project_java_spring_react.repository.CategoryRepository;
+import org.lessons.java.final_project_java_spring_react.repository.GameRepository;
+import org.lessons.java.final_project_java_spring_react.repository.PlatformRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * In-memory inverted index over game title, publisher, category and platform
+ * names. Built once at startup and kept in sync by GameService, so catalog
+ * searches never run a LIKE scan against the database.
+ *
+ * Every query token must match (exactly or as a prefix of an indexed term);
+ * games are ranked by the summed field weights of their matches.
+ */
+@Component
+public class GameSearchIndex implements GameIndex {
+
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float PUBLISHER_WEIGHT = 1.5f;
+    private static final float CATEGORY_WEIGHT = 1.0f;
+    private static final float PLATFORM_WEIGHT = 1.0f;
+
+    // A prefix hit ("zel" -> "zelda") counts half as much as the whole word
+    private static final float PREFIX_FACTOR = 0.5f;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PlatformRepository platformRepository;
+
+    // term -> (gameId -> weight), sorted so prefix lookups are a subMap range
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+
+    // gameId -> its terms, needed to remove a game without scanning every posting list
+    private final Map<Long, Map<String, Float>> termsByGame = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        List<Game> games = gameRepository.findAll();
+
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            termsByGame.clear();
+            for (Game game : games) {
+                add(game.getId(), extractTerms(game, game.getCategories(), game.getPlatforms()));
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        System.out.println("✓ Search index built for " + games.size() + " games (" + postings.size() + " terms)");
+    }
+
+    // Add or replace a single game, called after GameService saves it
+    @Override
+    public void index(Game game) {
+        // Entities bound from forms/JSON may only carry ids, so resolve names from the database
+        List<Category> categories = game.getCategories() == null ? List.of()
+                : categoryRepository.findAllById(game.getCategories().stream().map(Category::getId).toList());
+        List<Platform> platforms = game.getPlatforms() == null ? List.of()
+                : platformRepository.findAllById(game.getPlatforms().stream().map(Platform::getId).toList());
+        Map<String, Float> terms = extractTerms(game, categories, platforms);
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(game.getId());
+            add(game.getId(), terms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long gameId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(gameId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Ranked game ids (best first) matching every token of the query
+    public List<Long> search(String query) {
+        return search(query, Integer.MAX_VALUE);
+    }
+
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = SearchText.tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Float> scores = null;
+        lock.readLock().lock();
+        try {
+            for (String token : tokens) {
+                Map<Long, Float> tokenScores = scoreToken(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    // AND semantics: keep only games matched by every token so far
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    for (Map.Entry<Long, Float> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + tokenScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Float>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    // Best score per game for one token: exact term, or any indexed term starting with it
+    private Map<Long, Float> scoreToken(String token) {
+        Map<Long, Float> tokenScores = new HashMap<>();
+        for (Map.Entry<String, Map<Long, Float>> posting : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            float factor = posting.getKey().equals(token) ? 1.0f : PREFIX_FACTOR;
+            for (Map.Entry<Long, Float> hit : posting.getValue().entrySet()) {
+                tokenScores.merge(hit.getKey(), hit.getValue() * factor, Math::max);
+            }
+        }
+        return tokenScores;
+    }
+
+    private Map<String, Float> extractTerms(Game game, List<Category> categories, List<Platform> platforms) {
+        Map<String, Float> terms = new HashMap<>();
+        addField(terms, game.getTitle(), TITLE_WEIGHT);
+        addField(terms, game.getPublisher(), PUBLISHER_WEIGHT);
+        if (categories != null) {
+            for (Category category : categories) {
+                addField(terms, category.getName(), CATEGORY_WEIGHT);
+            }
+        }
+        if (platforms != null) {
+            for (Platform platform : platforms) {
+                addField(terms, platform.getName(), PLATFORM_WEIGHT);
+            }
+        }
+        return terms;
+    }
+
+    private void addField(Map<String, Float> terms, String text, float weight) {
+        for (String token : SearchText.tokenize(text)) {
+            // A word appearing in several fields keeps its strongest weight
+            terms.merge(token, weight, Math::max);
+        }
+    }
+
+    private void add(Long gameId, Map<String, Float> terms) {
+        termsByGame.put(gameId, terms);
+        for (Map.Entry<String, Float> term : terms.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), key -> new HashMap<>()).put(gameId, term.getValue());
+        }
+    }
+
+    private void removeInternal(Long gameId) {
+        Map<String, Float> terms = termsByGame.remove(gameId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<Long, Float> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(gameId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package org.lessons.java.final_project_java_spring_react.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.lessons.java.final_project_java_spring_react.dto.GameSuggestion;
+import org.lessons.java.final_project_java_spring_react.dto.GameTitleView;
+import org.lessons.java.final_project_java_spring_react.dto.StockCount;
+import org.lessons.java.final_project_java_spring_react.model.Game;
+import org.lessons.java.final_project_java_spring_react.repository.ArchivedGameKeyRepository;
+import org.lessons.java.final_project_java_spring_react.repository.GameKeyRepository;
+import org.lessons.java.final_project_java_spring_react.repository.GameRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Typeahead over game titles that never touches the database on lookup.
+ *
+ * Each title is stored once (normalized) and indexed at every word start, so
+ * "zel" finds "The Legend of Zelda". The entries live in a sorted int array
+ * (title index + offset, no substring copies): a prefix is a contiguous range
+ * found with two binary searches, and a segment tree of the best-selling entry
+ * per range yields the top-k by sales in O(k log n) whatever the range size.
+ *
+ * The snapshot is immutable and swapped atomically; catalog changes and new
+ * sales trigger a background rebuild.
+ */
+@Component
+public class TitleSuggester implements GameIndex {
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private GameKeyRepository gameKeyRepository;
+
+    @Autowired
+    private ArchivedGameKeyRepository archivedGameKeyRepository;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    private volatile boolean dirty = false;
+
+    // Sales state the snapshot weights were computed from
+    private volatile String salesVersion = "";
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        String version = salesVersion();
+        Map<Long, Long> salesByGame = new HashMap<>();
+        for (StockCount sold : gameKeyRepository.countSoldGroupedByGameAndPlatform()) {
+            salesByGame.merge(sold.getGameId(), sold.getCount(), Long::sum);
+        }
+        for (StockCount sold : archivedGameKeyRepository.countGroupedByGameAndPlatform()) {
+            salesByGame.merge(sold.getGameId(), sold.getCount(), Long::sum);
+        }
+        dirty = false;
+        snapshot = Snapshot.build(gameRepository.findAllProjectedBy(), salesByGame);
+        salesVersion = version;
+    }
+
+    // Titles only change through GameService, sales change all the time: rebuild when
+    // something changed, and refresh popularity weights every few minutes if keys were sold
+    @Scheduled(fixedDelayString = "${search.rebuild-interval-ms:5000}")
+    public void rebuildIfDirty() {
+        if (dirty) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.suggest.weights-refresh-ms:300000}",
+            initialDelayString = "${search.suggest.weights-refresh-ms:300000}")
+    public void refreshWeights() {
+        if (!salesVersion().equals(salesVersion)) {
+            rebuild();
+        }
+    }
+
+    // Changes with every sale, and when an admin unsells or deletes a sold key
+    private String salesVersion() {
+        return gameKeyRepository.countByIsSoldTrue() + "|" + gameKeyRepository.findLastSoldAt();
+    }
+
+    @Override
+    public void index(Game game) {
+        dirty = true;
+    }
+
+    @Override
+    public void remove(Long gameId) {
+        dirty = true;
+    }
+
+    public List<GameSuggestion> suggest(String query, int limit) {
+        return snapshot.suggest(String.join(" ", SearchText.tokenize(query)), limit);
+    }
+
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new long[0], new String[0], new String[0], new long[0],
+                new int[0], new int[0]);
+
+        // Per game
+        final long[] ids;
+        final String[] titles;
+        final String[] normalizedTitles;
+        final long[] weights;
+
+        // Per entry, sorted by normalizedTitles[entryTitle[i]].substring(entryOffset[i])
+        final int[] entryTitle;
+        final int[] entryOffset;
+
+        // Segment tree over entries: tree[n + i] = i, inner nodes = entry with the highest weight
+        final int[] tree;
+
+        Snapshot(long[] ids, String[] titles, String[] normalizedTitles, long[] weights,
+                int[] entryTitle, int[] entryOffset) {
+            this.ids = ids;
+            this.titles = titles;
+            this.normalizedTitles = normalizedTitles;
+            this.weights = weights;
+            this.entryTitle = entryTitle;
+            this.entryOffset = entryOffset;
+
+            int n = entryTitle.length;
+            this.tree = new int[2 * n];
+            for (int i = 0; i < n; i++) {
+                tree[n + i] = i;
+            }
+            for (int i = n - 1; i > 0; i--) {
+                tree[i] = better(tree[2 * i], tree[2 * i + 1]);
+            }
+        }
+
+        static Snapshot build(List<GameTitleView> games, Map<Long, Long> salesByGame) {
+            int count = games.size();
+            long[] ids = new long[count];
+            String[] titles = new String[count];
+            String[] normalizedTitles = new String[count];
+            long[] weights = new long[count];
+
+            List<int[]> entries = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                GameTitleView game = games.get(i);
+                ids[i] = game.getId();
+                titles[i] = game.getTitle();
+                normalizedTitles[i] = String.join(" ", SearchText.tokenize(game.getTitle()));
+                weights[i] = salesByGame.getOrDefault(game.getId(), 0L);
+
+                String normalized = normalizedTitles[i];
+                for (int offset = 0; offset < normalized.length(); offset++) {
+                    if (offset == 0 || normalized.charAt(offset - 1) == ' ') {
+                        entries.add(new int[] { i, offset });
+                    }
+                }
+            }
+
+            int[][] sorted = entries.toArray(new int[0][]);
+            Arrays.sort(sorted, (a, b) -> compareSuffixes(normalizedTitles[a[0]], a[1], normalizedTitles[b[0]], b[1]));
+
+            int[] entryTitle = new int[sorted.length];
+            int[] entryOffset = new int[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                entryTitle[i] = sorted[i][0];
+                entryOffset[i] = sorted[i][1];
+            }
+            return new Snapshot(ids, titles, normalizedTitles, weights, entryTitle, entryOffset);
+        }
+
+        List<GameSuggestion> suggest(String prefix, int limit) {
+            if (prefix.isEmpty() || limit <= 0 || entryTitle.length == 0) {
+                return List.of();
+            }
+            int from = lowerBound(prefix, false);
+            int to = lowerBound(prefix, true);
+            if (from >= to) {
+                return List.of();
+            }
+
+            // Best-first walk of the range: pop the heaviest entry, split the range around it
+            List<GameSuggestion> suggestions = new ArrayList<>(limit);
+            // Heaviest range first, same sales: alphabetical (as in better())
+            Comparator<int[]> heaviestFirst = (a, b) -> Long.compare(weights[entryTitle[b[2]]], weights[entryTitle[a[2]]]);
+            PriorityQueue<int[]> ranges = new PriorityQueue<>(heaviestFirst.thenComparingInt(range -> range[2]));
+            ranges.add(new int[] { from, to, rangeBest(from, to) });
+            List<Integer> returned = new ArrayList<>(limit);
+
+            while (!ranges.isEmpty() && suggestions.size() < limit) {
+                int[] range = ranges.poll();
+                int best = range[2];
+                int title = entryTitle[best];
+                // A title matched at several word starts is only suggested once
+                if (!returned.contains(title)) {
+                    returned.add(title);
+                    suggestions.add(new GameSuggestion(ids[title], titles[title]));
+                }
+                if (range[0] < best) {
+                    ranges.add(new int[] { range[0], best, rangeBest(range[0], best) });
+                }
+                if (best + 1 < range[1]) {
+                    ranges.add(new int[] { best + 1, range[1], rangeBest(best + 1, range[1]) });
+                }
+            }
+            return suggestions;
+        }
+
+        // First entry whose suffix is >= prefix (or > every suffix starting with prefix when upper)
+        private int lowerBound(String prefix, boolean upper) {
+            int low = 0;
+            int high = entryTitle.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int cmp = comparePrefix(mid, prefix);
+                if (cmp < 0 || (upper && cmp == 0)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // 0 when the entry starts with prefix, otherwise its order relative to prefix
+        private int comparePrefix(int entry, String prefix) {
+            String text = normalizedTitles[entryTitle[entry]];
+            int offset = entryOffset[entry];
+            int length = Math.min(text.length() - offset, prefix.length());
+            for (int i = 0; i < length; i++) {
+                int diff = text.charAt(offset + i) - prefix.charAt(i);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return text.length() - offset >= prefix.length() ? 0 : -1;
+        }
+
+        // Entry with the highest weight in [from, to)
+        private int rangeBest(int from, int to) {
+            int n = entryTitle.length;
+            int best = from;
+            for (int l = from + n, r = to + n; l < r; l >>= 1, r >>= 1) {
+                if ((l & 1) == 1) {
+                    best = better(best, tree[l++]);
+                }
+                if ((r & 1) == 1) {
+                    best = better(best, tree[--r]);
+                }
+            }
+            return best;
+        }
+
+        private int better(int a, int b) {
+            long weightA = weights[entryTitle[a]];
+            long weightB = weights[entryTitle[b]];
+            if (weightA != weightB) {
+                return weightA > weightB ? a : b;
+            }
+            return Math.min(a, b); // same sales: alphabetical
+        }
+
+        private static int compareSuffixes(String a, int offsetA, String b, int offsetB) {
+            int length = Math.min(a.length() - offsetA, b.length() - offsetB);
+            for (int i = 0; i < length; i++) {
+                int diff = a.charAt(offsetA + i) - b.charAt(offsetB + i);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return (a.length() - offsetA) - (b.length() - offsetB);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package org.lessons.java.final_project_java_spring_react.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.lessons.java.final_project_java_spring_react.dto.GameTitleView;
+import org.lessons.java.final_project_java_spring_react.model.Game;
+import org.lessons.java.final_project_java_spring_react.repository.GameRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Typo tolerant title search ("cyberpunck", "witchr").
+ *
+ * Titles are split into padded word trigrams ("  w", " wi", "wit", ...) and each
+ * trigram points to a sorted int[] of documents. A query counts shared trigrams
+ * per document in a reusable per-thread int[] (no boxing, no maps), keeps the
+ * best candidates, then re-ranks them with a bounded edit distance per word (transpositions count
+ * as a single edit).
+ *
+ * Like TitleSuggester the snapshot is immutable and rebuilt in the background
+ * after catalog changes.
+ */
+@Component
+public class TrigramIndex implements GameIndex {
+
+    // Trigram candidates re-ranked with edit distance
+    private static final int MAX_CANDIDATES = 64;
+
+    // Share of the query trigrams a title must contain to become a candidate
+    private static final double MIN_TRIGRAM_OVERLAP = 0.3;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    private volatile Snapshot snapshot = Snapshot.build(List.of());
+
+    private volatile boolean dirty = false;
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        dirty = false;
+        snapshot = Snapshot.build(gameRepository.findAllProjectedBy());
+    }
+
+    @Scheduled(fixedDelayString = "${search.rebuild-interval-ms:5000}")
+    public void rebuildIfDirty() {
+        if (dirty) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public void index(Game game) {
+        dirty = true;
+    }
+
+    @Override
+    public void remove(Long gameId) {
+        dirty = true;
+    }
+
+    // Game ids ordered by edit distance (closest first), then by trigram overlap
+    public List<Long> search(String query, int limit) {
+        List<String> queryWords = SearchText.tokenize(query);
+        if (queryWords.isEmpty()) {
+            return List.of();
+        }
+        Snapshot current = snapshot;
+        Scratch work = scratch.get();
+        work.ensureCapacity(current.docIds.length);
+
+        long[] queryTrigrams = trigrams(queryWords);
+        int minShared = Math.max(1, (int) Math.ceil(queryTrigrams.length * MIN_TRIGRAM_OVERLAP));
+
+        // Candidate generation: count shared trigrams per document
+        int touchedCount = 0;
+        for (long trigram : queryTrigrams) {
+            int[] posting = current.postingFor(trigram);
+            for (int doc : posting) {
+                if (work.counts[doc]++ == 0) {
+                    work.touched[touchedCount++] = doc;
+                }
+            }
+        }
+
+        // Keep the best candidates, packed as (shared << 32 | doc) so they sort as plain longs
+        int candidateCount = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int doc = work.touched[i];
+            if (work.counts[doc] >= minShared) {
+                work.candidates[candidateCount++] = ((long) work.counts[doc] << 32) | doc;
+            }
+            work.counts[doc] = 0;
+        }
+        Arrays.sort(work.candidates, 0, candidateCount);
+        int firstCandidate = Math.max(0, candidateCount - MAX_CANDIDATES);
+
+        // Re-rank: sum over query words of the closest title word, within a per-word bound
+        List<long[]> ranked = new ArrayList<>();
+        for (int i = candidateCount - 1; i >= firstCandidate; i--) {
+            int doc = (int) work.candidates[i];
+            int shared = (int) (work.candidates[i] >>> 32);
+            int distance = distance(queryWords, current.docWords[doc], work);
+            if (distance >= 0) {
+                ranked.add(new long[] { distance, -shared, current.docIds[doc] });
+            }
+        }
+        ranked.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        return ranked.stream()
+                .limit(limit)
+                .map(entry -> entry[2])
+                .toList();
+    }
+
+    // -1 when some query word has no title word within its bound
+    private int distance(List<String> queryWords, String[] titleWords, Scratch work) {
+        int total = 0;
+        for (String queryWord : queryWords) {
+            int bound = Math.max(1, queryWord.length() / 3);
+            int best = bound + 1;
+            for (String titleWord : titleWords) {
+                best = Math.min(best, boundedLevenshtein(queryWord, titleWord, Math.min(bound, best - 1), work));
+                if (best == 0) {
+                    break;
+                }
+            }
+            if (best > bound) {
+                return -1;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    // Edit distance counting swapped neighbours as one edit ("zelad" -> "zelda"),
+    // or bound + 1 as soon as it is known to exceed bound
+    static int boundedLevenshtein(String a, String b, int bound, Scratch work) {
+        if (Math.abs(a.length() - b.length()) > bound) {
+            return bound + 1;
+        }
+        work.ensureRowCapacity(b.length() + 1);
+        int[] twoBack = work.twoBackRow;
+        int[] previous = work.previousRow;
+        int[] current = work.currentRow;
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], twoBack[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > bound) {
+                return bound + 1;
+            }
+            int[] recycled = twoBack;
+            twoBack = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], bound + 1);
+    }
+
+    // Distinct padded trigrams of the given words, each encoded as 3 x 16-bit chars in a long
+    static long[] trigrams(List<String> words) {
+        int total = 0;
+        for (String word : words) {
+            total += word.length() + 1;
+        }
+        long[] trigrams = new long[total];
+        int count = 0;
+        for (String word : words) {
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams[count++] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+            }
+        }
+        Arrays.sort(trigrams, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || trigrams[distinct - 1] != trigrams[i]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    private static final class Snapshot {
+
+        private static final int[] NO_DOCS = new int[0];
+
+        final long[] docIds;
+        final String[][] docWords;
+
+        // Open addressing table trigram -> posting list (sorted doc numbers)
+        final long[] tableKeys;
+        final int[][] tablePostings;
+        final int mask;
+
+        private Snapshot(long[] docIds, String[][] docWords, long[] tableKeys, int[][] tablePostings) {
+            this.docIds = docIds;
+            this.docWords = docWords;
+            this.tableKeys = tableKeys;
+            this.tablePostings = tablePostings;
+            this.mask = tableKeys.length - 1;
+        }
+
+        static Snapshot build(List<GameTitleView> games) {
+            int docCount = games.size();
+            long[] docIds = new long[docCount];
+            String[][] docWords = new String[docCount][];
+            long[][] docTrigrams = new long[docCount][];
+            int totalTrigrams = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                docIds[doc] = games.get(doc).getId();
+                List<String> words = SearchText.tokenize(games.get(doc).getTitle());
+                docWords[doc] = words.toArray(new String[0]);
+                docTrigrams[doc] = trigrams(words);
+                totalTrigrams += docTrigrams[doc].length;
+            }
+
+            // Table sized to a power of two at most half full (EMPTY key = -1, never a valid trigram)
+            int capacity = Integer.highestOneBit(Math.max(16, totalTrigrams * 2 - 1)) << 1;
+            long[] tableKeys = new long[capacity];
+            Arrays.fill(tableKeys, -1L);
+            int[] sizes = new int[capacity];
+            int mask = capacity - 1;
+            for (long[] trigrams : docTrigrams) {
+                for (long trigram : trigrams) {
+                    sizes[slot(tableKeys, mask, trigram, true)]++;
+                }
+            }
+
+            int[][] tablePostings = new int[capacity][];
+            for (int i = 0; i < capacity; i++) {
+                if (tableKeys[i] != -1L) {
+                    tablePostings[i] = new int[sizes[i]];
+                    sizes[i] = 0;
+                }
+            }
+            // Documents are visited in order, so every posting list comes out sorted
+            for (int doc = 0; doc < docCount; doc++) {
+                for (long trigram : docTrigrams[doc]) {
+                    int slot = slot(tableKeys, mask, trigram, false);
+                    tablePostings[slot][sizes[slot]++] = doc;
+                }
+            }
+            return new Snapshot(docIds, docWords, tableKeys, tablePostings);
+        }
+
+        int[] postingFor(long trigram) {
+            int slot = slot(tableKeys, mask, trigram, false);
+            return slot < 0 ? NO_DOCS : tablePostings[slot];
+        }
+
+        private static int slot(long[] keys, int mask, long trigram, boolean insert) {
+            int slot = (int) (mix(trigram) & mask);
+            while (keys[slot] != trigram) {
+                if (keys[slot] == -1L) {
+                    if (!insert) {
+                        return -1;
+                    }
+                    keys[slot] = trigram;
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private static long mix(long key) {
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            return key;
+        }
+    }
+
+    // Per-thread buffers reused across searches
+    static final class Scratch {
+        int[] counts = new int[0];
+        int[] touched = new int[0];
+        long[] candidates = new long[0];
+        int[] twoBackRow = new int[32];
+        int[] previousRow = new int[32];
+        int[] currentRow = new int[32];
+
+        void ensureCapacity(int docCount) {
+            if (counts.length < docCount) {
+                counts = new int[docCount];
+                touched = new int[docCount];
+                candidates = new long[docCount];
+            }
+        }
+
+        void ensureRowCapacity(int length) {
+            if (previousRow.length < length) {
+                twoBackRow = new int[length];
+                previousRow = new int[length];
+                currentRow = new int[length];
+            }
+        }
+    }
+}
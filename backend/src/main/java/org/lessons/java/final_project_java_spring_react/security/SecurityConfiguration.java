@@ -33,6 +33,9 @@ public class SecurityConfiguration {
                 .requestMatchers("/admin/**").hasRole("ADMIN")
                 // API routes - protected endpoints require authentication
                 .requestMatchers("/api/checkout/**").authenticated()
+                // Subscriber data and newsletter sending - ADMIN only
+                .requestMatchers("/api/newsletter/subscribers/**", "/api/newsletter/send",
+                        "/api/newsletter/campaigns/**").hasRole("ADMIN")
                 // Public API routes for React
                 .requestMatchers("/api/**").permitAll()
                 .requestMatchers("/css/**", "/js/**", "/images/**").permitAll()
@@ -0,0 +1,158 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.lessons.java.final_project_java_spring_react.dto.CartLine;
+import org.lessons.java.final_project_java_spring_react.dto.CartQuote;
+import org.lessons.java.final_project_java_spring_react.dto.CartQuoteLine;
+import org.lessons.java.final_project_java_spring_react.model.Game;
+import org.lessons.java.final_project_java_spring_react.model.GameStockId;
+import org.lessons.java.final_project_java_spring_react.model.Money;
+import org.lessons.java.final_project_java_spring_react.model.Platform;
+import org.lessons.java.final_project_java_spring_react.repository.GameRepository;
+import org.lessons.java.final_project_java_spring_react.search.GameIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Prices carts for the cart page (POST /api/cart/quote) and for checkout, so
+ * both show and charge the same amounts.
+ *
+ * Cart page quotes come from an in-memory snapshot of the catalog (built at
+ * startup and kept in sync by GameService like the search indexes); only stock
+ * is read from the database, with one game_stock lookup for the whole cart.
+ * The snapshot may lag behind a change made on another instance or directly
+ * in the database, so checkout quotes read the cart's games from the database
+ * and refresh the snapshot with them: the amount charged and stored on the
+ * order is always the current price.
+ */
+@Service
+public class CartQuoteService implements GameIndex {
+
+    private static final int DESCRIPTION_LENGTH = 100;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private GameStockService gameStockService;
+
+    private final Map<Long, PriceEntry> prices = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        List<Game> games = gameRepository.findAll();
+        Map<Long, PriceEntry> entries = new HashMap<>();
+        for (Game game : games) {
+            entries.put(game.getId(), new PriceEntry(game));
+        }
+        prices.keySet().retainAll(entries.keySet());
+        prices.putAll(entries);
+        System.out.println("✓ Price snapshot built for " + entries.size() + " games");
+    }
+
+    @Override
+    public void index(Game game) {
+        prices.put(game.getId(), new PriceEntry(game));
+    }
+
+    @Override
+    public void remove(Long gameId) {
+        prices.remove(gameId);
+    }
+
+    public CartQuote quote(List<CartLine> items) {
+        return quote(items, prices);
+    }
+
+    @Transactional(readOnly = true)
+    public CartQuote quoteForCheckout(List<CartLine> items) {
+        Set<Long> gameIds = new HashSet<>();
+        for (CartLine item : items) {
+            gameIds.add(item.getGameId());
+        }
+        Map<Long, PriceEntry> current = new HashMap<>();
+        for (Game game : gameRepository.findAllById(gameIds)) {
+            current.put(game.getId(), new PriceEntry(game));
+        }
+        prices.putAll(current);
+        return quote(items, current);
+    }
+
+    private CartQuote quote(List<CartLine> items, Map<Long, PriceEntry> entries) {
+        List<GameStockId> pairs = new ArrayList<>();
+        for (CartLine item : items) {
+            pairs.add(new GameStockId(item.getGameId(), item.getPlatformId()));
+        }
+        Map<GameStockId, Long> stock = gameStockService.getAvailableStock(pairs);
+
+        // Units of each pair already taken by earlier lines of this cart
+        Map<GameStockId, Long> taken = new HashMap<>();
+        List<CartQuoteLine> lines = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            CartLine item = items.get(i);
+            GameStockId pair = pairs.get(i);
+            PriceEntry entry = entries.get(item.getGameId());
+            if (entry == null) {
+                lines.add(new CartQuoteLine(item.getGameId(), item.getPlatformId(), null, null, null, 0, 0, 0, 0,
+                        "Game not found"));
+                continue;
+            }
+
+            long available = stock.getOrDefault(pair, 0L);
+            String error = null;
+            if (!entry.platformIds.contains(item.getPlatformId())) {
+                error = entry.title + " is not sold on this platform";
+            } else if (taken.merge(pair, 1L, Long::sum) > available) {
+                error = available == 0 ? "No available keys for " + entry.title
+                        : "Only " + available + " keys left for " + entry.title;
+            }
+            lines.add(new CartQuoteLine(item.getGameId(), item.getPlatformId(), entry.title, entry.imageUrl,
+                    entry.description, entry.priceCents, entry.discountPercentage, entry.finalPriceCents, available,
+                    error));
+        }
+        return new CartQuote(lines);
+    }
+
+    // Immutable: replaced as a whole when the game changes
+    private static class PriceEntry {
+
+        private final String title;
+
+        private final String imageUrl;
+
+        private final String description;
+
+        private final long priceCents;
+
+        private final int discountPercentage;
+
+        private final long finalPriceCents;
+
+        private final Set<Long> platformIds;
+
+        PriceEntry(Game game) {
+            this.title = game.getTitle();
+            this.imageUrl = game.getImageUrl();
+            String fullDescription = game.getDescription();
+            this.description = fullDescription != null && fullDescription.length() > DESCRIPTION_LENGTH
+                    ? fullDescription.substring(0, DESCRIPTION_LENGTH) + "..."
+                    : fullDescription;
+            this.priceCents = Money.toCents(game.getPrice());
+            this.discountPercentage = game.getDiscountPercentage() != null ? game.getDiscountPercentage() : 0;
+            this.finalPriceCents = Money.unitPriceCents(game);
+            this.platformIds = game.getPlatforms() == null ? Set.of()
+                    : Set.copyOf(game.getPlatforms().stream().map(Platform::getId).toList());
+        }
+    }
+}
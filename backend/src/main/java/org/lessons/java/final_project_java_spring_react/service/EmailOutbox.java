@@ -0,0 +1,167 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.lessons.java.final_project_java_spring_react.model.NewsletterSubscriber;
+import org.lessons.java.final_project_java_spring_react.model.OutboxEmail;
+import org.lessons.java.final_project_java_spring_react.model.Order;
+import org.lessons.java.final_project_java_spring_react.model.User;
+import org.lessons.java.final_project_java_spring_react.repository.NewsletterSubscriberRepository;
+import org.lessons.java.final_project_java_spring_react.repository.OrderRepository;
+import org.lessons.java.final_project_java_spring_react.repository.OutboxEmailRepository;
+import org.lessons.java.final_project_java_spring_react.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Transactional outbox for account, order and newsletter welcome emails
+ * (newsletter campaigns have their own durable job, see NewsletterSender).
+ *
+ * Requests only insert an email_outbox row next to the user, order or
+ * subscriber they save, so SMTP latency never reaches the request and a crash
+ * cannot lose an email. The dispatcher claims due rows with SKIP LOCKED and a
+ * lease (a crashed instance's claims are retried once the lease runs out),
+ * sends them outside any transaction and retries failures with exponential
+ * backoff. Sent rows are purged after email.outbox.retention-days.
+ */
+@Service
+public class EmailOutbox {
+
+    // How long a claimed email is invisible to other dispatchers
+    private static final int CLAIM_LEASE_MINUTES = 10;
+
+    private static final long MAX_BACKOFF_SECONDS = 3600;
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private NewsletterSubscriberRepository subscriberRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${email.outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${email.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.retry-delay-seconds:30}")
+    private long retryDelaySeconds;
+
+    @Value("${email.outbox.retention-days:14}")
+    private int retentionDays;
+
+    // Call inside the transaction that creates the user / completes the order / adds the subscriber
+    public void enqueue(String type, Long referenceId) {
+        outboxEmailRepository.save(new OutboxEmail(type, referenceId));
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:2000}")
+    public void dispatch() {
+        List<OutboxEmail> claimed;
+        do {
+            claimed = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                List<OutboxEmail> due = outboxEmailRepository.findDueForUpdate(now, Limit.of(batchSize));
+                for (OutboxEmail email : due) {
+                    email.setNextAttemptAt(now.plusMinutes(CLAIM_LEASE_MINUTES));
+                }
+                return due;
+            });
+
+            for (OutboxEmail email : claimed) {
+                try {
+                    send(email);
+                    transactionTemplate.executeWithoutResult(status -> markSent(email.getId()));
+                } catch (Exception e) {
+                    transactionTemplate.executeWithoutResult(status -> markFailed(email.getId(), e));
+                }
+            }
+        } while (claimed.size() == batchSize);
+    }
+
+    private void send(OutboxEmail email) {
+        switch (email.getType()) {
+            case OutboxEmail.WELCOME -> {
+                User user = userRepository.findById(email.getReferenceId().intValue())
+                        .orElseThrow(() -> new IllegalStateException("User not found"));
+                emailService.sendWelcomeEmail(user);
+            }
+            case OutboxEmail.ORDER_CONFIRMATION -> {
+                // Load the keys before leaving the transaction, the template lists them
+                Order order = transactionTemplate.execute(status -> {
+                    Order found = orderRepository.findById(email.getReferenceId()).orElse(null);
+                    if (found != null) {
+                        found.getGameKeys().size();
+                    }
+                    return found;
+                });
+                if (order == null) {
+                    throw new IllegalStateException("Order not found");
+                }
+                emailService.sendOrderConfirmationEmail(order, order.getGameKeys());
+            }
+            case OutboxEmail.NEWSLETTER_WELCOME -> {
+                NewsletterSubscriber subscriber = subscriberRepository.findById(email.getReferenceId())
+                        .orElseThrow(() -> new IllegalStateException("Subscriber not found"));
+                if (subscriber.isActive()) {
+                    emailService.sendNewsletterWelcomeEmail(subscriber.getEmail());
+                }
+            }
+            default -> throw new IllegalStateException("Unknown email type " + email.getType());
+        }
+    }
+
+    // Failed rows are kept for inspection, sent ones only for a while
+    @Scheduled(cron = "${email.outbox.cleanup-cron:0 30 3 * * *}")
+    public void deleteSent() {
+        int deleted = outboxEmailRepository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) {
+            System.out.println("✓ Deleted " + deleted + " sent emails from the outbox");
+        }
+    }
+
+    private void markSent(Long emailId) {
+        outboxEmailRepository.findById(emailId).ifPresent(email -> {
+            email.setStatus(OutboxEmail.SENT);
+            email.setSentAt(LocalDateTime.now());
+            email.setAttempts(email.getAttempts() + 1);
+            email.setLastError(null);
+        });
+    }
+
+    private void markFailed(Long emailId, Exception e) {
+        outboxEmailRepository.findById(emailId).ifPresent(email -> {
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            email.setAttempts(email.getAttempts() + 1);
+            email.setLastError(error.length() > 1024 ? error.substring(0, 1024) : error);
+
+            // A missing user/order will not come back: no point in retrying
+            if (e instanceof IllegalStateException || email.getAttempts() >= maxAttempts) {
+                email.setStatus(OutboxEmail.FAILED);
+                System.err.println("❌ " + email.getType() + " email " + emailId + " failed after "
+                        + email.getAttempts() + " attempts: " + error);
+            } else {
+                long backoffSeconds = Math.min(MAX_BACKOFF_SECONDS,
+                        retryDelaySeconds << Math.min(20, email.getAttempts() - 1));
+                email.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoffSeconds));
+            }
+        });
+    }
+}
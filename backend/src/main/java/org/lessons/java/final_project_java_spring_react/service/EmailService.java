@@ -1,18 +1,28 @@
 package org.lessons.java.final_project_java_spring_react.service;
 
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.lessons.java.final_project_java_spring_react.model.GameKey;
 import org.lessons.java.final_project_java_spring_react.model.Order;
 import org.lessons.java.final_project_java_spring_react.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
@@ -20,11 +30,17 @@ import jakarta.mail.internet.MimeMessage;
 @Service
 public class EmailService {
 
+    private static final Pattern FULL_DOCUMENT = Pattern.compile("<!doctype|<html[\\s>]|<body[\\s>]",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern DOCUMENT_END = Pattern.compile("</body\\s*>|</html\\s*>", Pattern.CASE_INSENSITIVE);
+
     @Autowired
     private JavaMailSender mailSender;
 
+    // Templates are rendered once, then only the per-email values are filled in
     @Autowired
-    private TemplateEngine templateEngine;
+    private EmailTemplateCache templateCache;
 
     @Value("${spring.mail.username}")
     private String fromEmail;
@@ -37,11 +53,9 @@ public class EmailService {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
-            Context context = new Context();
-            context.setVariable("username", user.getUsername());
-            context.setVariable("email", user.getEmail());
-
-            String htmlContent = templateEngine.process("email/welcome", context);
+            String htmlContent = templateCache.render("email/welcome", Locale.getDefault(), Map.of(
+                    "username", user.getUsername(),
+                    "email", user.getEmail()));
 
             helper.setFrom(fromEmail);
             helper.setTo(user.getEmail());
@@ -51,7 +65,8 @@ public class EmailService {
             mailSender.send(message);
             System.out.println("✅ Welcome email sent to: " + user.getEmail());
         } catch (MessagingException e) {
-            System.err.println("❌ Failed to send welcome email: " + e.getMessage());
+            // Malformed message (e.g. invalid address): EmailOutbox marks it failed instead of sent
+            throw new IllegalStateException("Failed to build welcome email: " + e.getMessage(), e);
         }
     }
 
@@ -63,14 +78,25 @@ public class EmailService {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
-            Context context = new Context();
-            context.setVariable("username", order.getUser().getUsername());
-            context.setVariable("orderId", order.getId());
-            context.setVariable("totalPrice", order.getTotalPrice());
-            context.setVariable("orderDate", order.getOrderDate());
-            context.setVariable("gameKeys", gameKeys);
+            Locale locale = Locale.getDefault();
+            StringBuilder keysHtml = new StringBuilder();
+            for (GameKey key : gameKeys) {
+                keysHtml.append(templateCache.render("email/order-confirmation-key", locale, Map.of(
+                        "title", key.getGame().getTitle(),
+                        "platform", key.getPlatform().getName(),
+                        "keyCode", key.getKeyCode())));
+            }
+
+            // Formatted here: the cached template only substitutes strings
+            DecimalFormat priceFormat = new DecimalFormat("0.00", DecimalFormatSymbols.getInstance(locale));
+            priceFormat.setRoundingMode(RoundingMode.HALF_EVEN);
 
-            String htmlContent = templateEngine.process("email/order-confirmation", context);
+            String htmlContent = templateCache.render("email/order-confirmation", locale, Map.of(
+                    "username", order.getUser().getUsername(),
+                    "orderId", String.valueOf(order.getId()),
+                    "totalPrice", priceFormat.format(order.getTotalPrice()),
+                    "orderDate", DateTimeFormatter.ofPattern("dd MMMM yyyy HH:mm", locale).format(order.getOrderDate()),
+                    "gameKeys", keysHtml.toString()));
 
             helper.setFrom(fromEmail);
             helper.setTo(order.getUser().getEmail());
@@ -80,7 +106,7 @@ public class EmailService {
             mailSender.send(message);
             System.out.println("✅ Order confirmation sent to: " + order.getUser().getEmail());
         } catch (MessagingException e) {
-            System.err.println("❌ Failed to send order confirmation: " + e.getMessage());
+            throw new IllegalStateException("Failed to build order confirmation: " + e.getMessage(), e);
         }
     }
 
@@ -92,10 +118,8 @@ public class EmailService {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
-            Context context = new Context();
-            context.setVariable("email", email);
-
-            String htmlContent = templateEngine.process("email/newsletter-welcome", context);
+            String htmlContent = templateCache.render("email/newsletter-welcome", Locale.getDefault(),
+                    Map.of("email", email));
 
             helper.setFrom(fromEmail);
             helper.setTo(email);
@@ -105,14 +129,21 @@ public class EmailService {
             mailSender.send(message);
             System.out.println("✅ Newsletter welcome email sent to: " + email);
         } catch (MessagingException e) {
-            System.err.println("❌ Failed to send newsletter welcome email: " + e.getMessage());
+            throw new IllegalStateException("Failed to build newsletter welcome email: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Send newsletter to all active subscribers
+     * Send one batch of newsletter messages over a single SMTP connection.
+     * Returns the recipients that failed, with the reason.
      */
-    public void sendNewsletterEmail(String subject, String htmlContent, List<String> recipients) {
+    public Map<String, String> sendNewsletterBatch(String subject, String htmlContent, List<String> recipients) {
+        Map<String, String> failures = new HashMap<>();
+        Map<MimeMessage, String> recipientByMessage = new IdentityHashMap<>();
+
+        // Built once per batch, only the unsubscribe link differs between recipients
+        EmailTemplateCache.Stencil stencil = newsletterStencil(subject, htmlContent);
+
         for (String email : recipients) {
             try {
                 MimeMessage message = mailSender.createMimeMessage();
@@ -121,14 +152,46 @@ public class EmailService {
                 helper.setFrom(fromEmail);
                 helper.setTo(email);
                 helper.setSubject(subject);
-                helper.setText(htmlContent, true);
-
-                mailSender.send(message);
-                System.out.println("✅ Newsletter sent to: " + email);
+                helper.setText(stencil.fill(Map.of("email", email)), true);
+                recipientByMessage.put(message, email);
             } catch (MessagingException e) {
-                System.err.println("❌ Failed to send newsletter to " + email + ": " + e.getMessage());
+                failures.put(email, e.getMessage());
             }
         }
+        if (recipientByMessage.isEmpty()) {
+            return failures;
+        }
+
+        try {
+            // JavaMailSender opens one connection for the whole array
+            mailSender.send(recipientByMessage.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            e.getFailedMessages().forEach((message, cause) -> {
+                String email = recipientByMessage.get(message);
+                if (email != null) {
+                    failures.put(email, cause.getMessage());
+                }
+            });
+        } catch (MailException e) {
+            // Nothing was sent (authentication, connection...)
+            recipientByMessage.values().forEach(email -> failures.put(email, e.getMessage()));
+        }
+        return failures;
+    }
+
+    // A fragment gets the newsletter layout. A full document written by the admin is
+    // sent as it is, with only the unsubscribe footer added before its closing tags.
+    EmailTemplateCache.Stencil newsletterStencil(String subject, String htmlContent) {
+        Locale locale = Locale.getDefault();
+        if (!FULL_DOCUMENT.matcher(htmlContent).find()) {
+            return templateCache.get("email/newsletter", locale, List.of("subject", "content", "email"))
+                    .with("subject", subject)
+                    .with("content", htmlContent);
+        }
+        Matcher end = DOCUMENT_END.matcher(htmlContent);
+        int footerAt = end.find() ? end.start() : htmlContent.length();
+        return templateCache.get("email/newsletter-footer", locale, List.of("email"))
+                .between(htmlContent.substring(0, footerAt), htmlContent.substring(footerAt));
     }
 
     /**
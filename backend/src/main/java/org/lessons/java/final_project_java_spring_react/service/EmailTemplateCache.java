@@ -0,0 +1,175 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.unbescape.html.HtmlEscape;
+import org.unbescape.uri.UriEscape;
+
+/**
+ * Renders each email template once per locale and keeps the result as a
+ * stencil: the invariant HTML with holes for the per-email values.
+ *
+ * The template is processed with a marker in place of every per-email
+ * variable. Markers come out differently depending on where they were
+ * used (th:text, th:utext or a link parameter), so each hole knows how its
+ * value must be escaped, and filling a stencil gives the same HTML
+ * Thymeleaf would have produced, at the cost of a string concatenation.
+ *
+ * Per-email variables must be plain strings: format dates, prices and
+ * lists before passing them in. Follows spring.thymeleaf.cache, so
+ * template edits show up immediately in development.
+ */
+@Service
+public class EmailTemplateCache {
+
+    // "&" is what tells the three forms apart: th:text escapes it, th:utext keeps it, links encode it
+    private static final String MARKER_PREFIX = "tpl-slot-";
+
+    private static final Pattern MARKER = Pattern.compile(
+            "\\{\\{" + MARKER_PREFIX + "(\\d+)(&amp;|&)}}|%7B%7B" + MARKER_PREFIX + "(\\d+)%26%7D%7D");
+
+    private enum Escaping {
+        TEXT, RAW, URL_PARAMETER
+    }
+
+    private record StencilKey(String template, Locale locale, List<String> variables) {
+    }
+
+    @Autowired
+    private TemplateEngine templateEngine;
+
+    @Value("${spring.thymeleaf.cache:true}")
+    private boolean cacheEnabled;
+
+    private final Map<StencilKey, Stencil> stencils = new ConcurrentHashMap<>();
+
+    public String render(String template, Locale locale, Map<String, String> values) {
+        return get(template, locale, List.copyOf(values.keySet())).fill(values);
+    }
+
+    // Variables not listed here cannot be used by the template
+    public Stencil get(String template, Locale locale, List<String> variables) {
+        StencilKey key = new StencilKey(template, locale, variables.stream().sorted().toList());
+        if (!cacheEnabled) {
+            return compile(key);
+        }
+        return stencils.computeIfAbsent(key, this::compile);
+    }
+
+    private Stencil compile(StencilKey key) {
+        Context context = new Context(key.locale());
+        for (int i = 0; i < key.variables().size(); i++) {
+            context.setVariable(key.variables().get(i), "{{" + MARKER_PREFIX + i + "&}}");
+        }
+        String html = templateEngine.process(key.template(), context);
+
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<Escaping> escapings = new ArrayList<>();
+        Matcher matcher = MARKER.matcher(html);
+        int position = 0;
+        while (matcher.find()) {
+            literals.add(html.substring(position, matcher.start()));
+            if (matcher.group(1) != null) {
+                names.add(key.variables().get(Integer.parseInt(matcher.group(1))));
+                escapings.add(matcher.group(2).equals("&") ? Escaping.RAW : Escaping.TEXT);
+            } else {
+                names.add(key.variables().get(Integer.parseInt(matcher.group(3))));
+                escapings.add(Escaping.URL_PARAMETER);
+            }
+            position = matcher.end();
+        }
+        literals.add(html.substring(position));
+
+        if (literals.stream().anyMatch(literal -> literal.contains(MARKER_PREFIX))) {
+            // Transformed by something other than th:text, th:utext or a link parameter
+            throw new IllegalStateException("Template " + key.template() + " uses a per-email variable "
+                    + "in an unsupported way, pass it already formatted");
+        }
+        return new Stencil(literals, names, escapings);
+    }
+
+    /**
+     * A rendered template with holes. Immutable, safe to share between threads.
+     */
+    public static final class Stencil {
+
+        // One more literal than holes: literal, hole, literal, ..., literal
+        private final List<String> literals;
+
+        private final List<String> names;
+
+        private final List<Escaping> escapings;
+
+        private final int length;
+
+        private Stencil(List<String> literals, List<String> names, List<Escaping> escapings) {
+            this.literals = literals;
+            this.names = names;
+            this.escapings = escapings;
+            this.length = literals.stream().mapToInt(String::length).sum();
+        }
+
+        public String fill(Map<String, String> values) {
+            StringBuilder html = new StringBuilder(length + 64 * names.size());
+            html.append(literals.get(0));
+            for (int i = 0; i < names.size(); i++) {
+                html.append(escape(values.get(names.get(i)), escapings.get(i)));
+                html.append(literals.get(i + 1));
+            }
+            return html.toString();
+        }
+
+        // Fills the holes of one variable, for values shared by a whole batch (newsletter content)
+        public Stencil with(String name, String value) {
+            List<String> newLiterals = new ArrayList<>();
+            List<String> newNames = new ArrayList<>();
+            List<Escaping> newEscapings = new ArrayList<>();
+            StringBuilder literal = new StringBuilder(literals.get(0));
+            for (int i = 0; i < names.size(); i++) {
+                if (names.get(i).equals(name)) {
+                    literal.append(escape(value, escapings.get(i)));
+                } else {
+                    newLiterals.add(literal.toString());
+                    newNames.add(names.get(i));
+                    newEscapings.add(escapings.get(i));
+                    literal = new StringBuilder();
+                }
+                literal.append(literals.get(i + 1));
+            }
+            newLiterals.add(literal.toString());
+            return new Stencil(newLiterals, newNames, newEscapings);
+        }
+
+        // Puts fixed HTML around the whole stencil (a full document the footer goes into)
+        public Stencil between(String before, String after) {
+            List<String> newLiterals = new ArrayList<>(literals);
+            newLiterals.set(0, before + newLiterals.get(0));
+            newLiterals.set(newLiterals.size() - 1, newLiterals.get(newLiterals.size() - 1) + after);
+            return new Stencil(newLiterals, names, escapings);
+        }
+
+        // Same escaping Thymeleaf applies in HTML mode
+        private static String escape(String value, Escaping escaping) {
+            if (value == null) {
+                return "";
+            }
+            return switch (escaping) {
+                case TEXT -> HtmlEscape.escapeHtml4Xml(value);
+                case RAW -> value;
+                case URL_PARAMETER -> HtmlEscape.escapeHtml4Xml(UriEscape.escapeUriQueryParam(value));
+            };
+        }
+    }
+}
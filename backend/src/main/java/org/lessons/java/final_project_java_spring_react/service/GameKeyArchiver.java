@@ -0,0 +1,72 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.lessons.java.final_project_java_spring_react.repository.ArchivedGameKeyRepository;
+import org.lessons.java.final_project_java_spring_react.repository.GameKeyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves keys sold more than keyarchive.sold-age-days ago from game_keys to
+ * game_keys_archive, so the live table only holds sellable and recently sold
+ * keys. Each chunk is copied and deleted in its own short transaction; order
+ * history keeps reading both tables through Order.getAllKeys().
+ */
+@Service
+public class GameKeyArchiver {
+
+    @Autowired
+    private GameKeyRepository gameKeyRepository;
+
+    @Autowired
+    private ArchivedGameKeyRepository archivedGameKeyRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${keyarchive.sold-age-days:90}")
+    private int soldAgeDays;
+
+    @Value("${keyarchive.chunk-size:1000}")
+    private int chunkSize;
+
+    @Scheduled(cron = "${keyarchive.cron:0 30 3 * * *}")
+    public void archive() {
+        long startTime = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(soldAgeDays);
+        long archived = 0;
+
+        while (true) {
+            List<Long> keyIds = gameKeyRepository.findSoldIdsBefore(cutoff, Limit.of(chunkSize));
+            if (keyIds.isEmpty()) {
+                break;
+            }
+
+            Integer moved = transactionTemplate.execute(status -> {
+                int copied = archivedGameKeyRepository.copyFromGameKeys(keyIds, LocalDateTime.now());
+                int deleted = archivedGameKeyRepository.deleteFromGameKeys(keyIds);
+                if (copied != deleted) {
+                    // Never lose a key: undo the chunk
+                    throw new IllegalStateException("Archived " + copied + " keys but deleted " + deleted);
+                }
+                return deleted;
+            });
+            archived += moved != null ? moved : 0;
+
+            if (keyIds.size() < chunkSize) {
+                break;
+            }
+        }
+
+        if (archived > 0) {
+            System.out.println("✓ Archived " + archived + " keys sold before " + cutoff.toLocalDate()
+                    + " in " + (System.currentTimeMillis() - startTime) + "ms");
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.lessons.java.final_project_java_spring_react.dto.KeyImportResult;
+import org.lessons.java.final_project_java_spring_react.model.GameStockId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bulk import of supplier key files (CSV lines: gameId,platformId,keyCode).
+ *
+ * The upload is read line by line and written with JDBC batch inserts, one
+ * transaction per chunk, so a 500k-line file never sits in memory or in a
+ * single transaction. Game/platform ids are checked against id sets loaded
+ * once per import. Duplicate key codes are looked up once per chunk through
+ * the unique key_code indexes of game_keys and game_keys_archive; a code
+ * added concurrently is caught by the index on insert and only that chunk is
+ * redone row by row.
+ *
+ * Chunks already written stay imported if a later one fails: the result then
+ * carries the error and the line the import stopped at.
+ */
+@Service
+public class GameKeyImportService {
+
+    private static final int MAX_REPORTED_REJECTIONS = 100;
+
+    private static final String INSERT_SQL = "INSERT INTO game_keys (key_code, is_sold, pooled, game_id, platform_id) "
+            + "VALUES (?, false, false, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private GameStockService gameStockService;
+
+    @Value("${keyimport.chunk-size:1000}")
+    private int chunkSize;
+
+    public KeyImportResult importCsv(InputStream input) throws IOException {
+        long startTime = System.currentTimeMillis();
+        Import run = new Import();
+        String error = null;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                run.linesRead++;
+                run.accept(line.trim());
+                if (run.chunk.size() >= chunkSize) {
+                    run.flush();
+                }
+            }
+            run.flush();
+        } catch (DataAccessException e) {
+            error = "Import stopped at line " + run.flushStartLine + ", earlier lines were imported: "
+                    + e.getMostSpecificCause().getMessage();
+            System.err.println("❌ Key import: " + error);
+        }
+
+        long elapsed = System.currentTimeMillis() - startTime;
+        KeyImportResult result = new KeyImportResult(run.linesRead, run.imported, run.rejected, run.skipped,
+                run.rejectedLines, error, elapsed);
+        System.out.println("✓ Key import: " + result.getImported() + " imported, " + result.getRejected()
+                + " rejected, " + result.getSkipped() + " skipped in " + elapsed + "ms ("
+                + result.getKeysPerSecond() + " keys/s)");
+        return result;
+    }
+
+    // State of one import run
+    private class Import {
+
+        private final Set<Long> gameIds = new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM games", Long.class));
+
+        private final Set<Long> platformIds = new HashSet<>(
+                jdbcTemplate.queryForList("SELECT id FROM platforms", Long.class));
+
+        // Pending rows, and their codes (catches repeats inside the chunk)
+        private final List<Row> chunk = new ArrayList<>();
+
+        private final Set<String> chunkCodes = new HashSet<>();
+
+        private final List<String> rejectedLines = new ArrayList<>();
+
+        private long linesRead = 0;
+
+        private long imported = 0;
+
+        private long rejected = 0;
+
+        // Blank lines and the header
+        private long skipped = 0;
+
+        // First line of the chunk being written, where a failed import stopped
+        private long flushStartLine = 0;
+
+        void accept(String line) {
+            if (linesRead == 1 && line.startsWith("\uFEFF")) {
+                line = line.substring(1).trim(); // byte order mark added by spreadsheet exports
+            }
+            if (line.isEmpty() || (linesRead == 1 && !Character.isDigit(line.charAt(0)))) {
+                skipped++;
+                return; // blank line or header
+            }
+
+            String[] fields = line.split(",", -1);
+            if (fields.length != 3) {
+                reject(line, "expected gameId,platformId,keyCode");
+                return;
+            }
+
+            Long gameId;
+            Long platformId;
+            try {
+                gameId = Long.valueOf(fields[0].trim());
+                platformId = Long.valueOf(fields[1].trim());
+            } catch (NumberFormatException e) {
+                reject(line, "invalid id");
+                return;
+            }
+            String keyCode = fields[2].trim();
+
+            if (!gameIds.contains(gameId)) {
+                reject(line, "unknown game " + gameId);
+            } else if (!platformIds.contains(platformId)) {
+                reject(line, "unknown platform " + platformId);
+            } else if (keyCode.isEmpty() || keyCode.length() > 255) {
+                reject(line, "invalid key code");
+            } else if (!chunkCodes.add(keyCode)) {
+                reject(line, "duplicate key code");
+            } else {
+                chunk.add(new Row(linesRead, line, keyCode, gameId, platformId));
+            }
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+
+            flushStartLine = chunk.get(0).lineNumber;
+            List<Row> candidates = withoutKnownCodes();
+            chunk.clear();
+            chunkCodes.clear();
+            if (candidates.isEmpty()) {
+                return;
+            }
+
+            List<Row> inserted;
+            try {
+                inserted = transactionTemplate.execute(status -> {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, candidates, candidates.size(), (ps, row) -> {
+                        ps.setString(1, row.keyCode);
+                        ps.setLong(2, row.gameId);
+                        ps.setLong(3, row.platformId);
+                    });
+                    addStock(candidates);
+                    return candidates;
+                });
+            } catch (DuplicateKeyException e) {
+                // A code was added concurrently: the chunk rolled back, redo it row by row
+                inserted = transactionTemplate.execute(status -> {
+                    List<Row> rows = insertOneByOne(candidates);
+                    addStock(rows);
+                    return rows;
+                });
+            }
+
+            imported += inserted != null ? inserted.size() : 0;
+        }
+
+        // One indexed lookup for the whole chunk, archived (sold) codes count as known too
+        private List<Row> withoutKnownCodes() {
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            Object[] params = new Object[chunk.size() * 2];
+            for (int i = 0; i < chunk.size(); i++) {
+                params[i] = chunk.get(i).keyCode;
+                params[chunk.size() + i] = chunk.get(i).keyCode;
+            }
+            Set<String> known = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT key_code FROM game_keys WHERE key_code IN (" + placeholders + ") "
+                            + "UNION ALL SELECT key_code FROM game_keys_archive WHERE key_code IN (" + placeholders + ")",
+                    String.class, params));
+
+            List<Row> rows = new ArrayList<>();
+            for (Row row : chunk) {
+                if (known.contains(row.keyCode)) {
+                    reject(row.lineNumber, row.line, "duplicate key code");
+                } else {
+                    rows.add(row);
+                }
+            }
+            return rows;
+        }
+
+        private void addStock(List<Row> rows) {
+            Map<GameStockId, Long> added = new HashMap<>();
+            for (Row row : rows) {
+                added.merge(new GameStockId(row.gameId, row.platformId), 1L, Long::sum);
+            }
+            added.forEach((pair, count) -> gameStockService.adjust(pair.getGameId(), pair.getPlatformId(), count));
+        }
+
+        private List<Row> insertOneByOne(List<Row> candidates) {
+            List<Row> rows = new ArrayList<>();
+            for (Row row : candidates) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, row.keyCode, row.gameId, row.platformId);
+                    rows.add(row);
+                } catch (DuplicateKeyException e) {
+                    reject(row.lineNumber, row.line, "duplicate key code");
+                }
+            }
+            return rows;
+        }
+
+        private void reject(String line, String reason) {
+            reject(linesRead, line, reason);
+        }
+
+        private void reject(long lineNumber, String line, String reason) {
+            rejected++;
+            if (rejectedLines.size() < MAX_REPORTED_REJECTIONS) {
+                rejectedLines.add("Line " + lineNumber + ": " + reason + " (" + line + ")");
+            }
+        }
+    }
+
+    private static class Row {
+
+        private final long lineNumber;
+
+        private final String line;
+
+        private final String keyCode;
+
+        private final Long gameId;
+
+        private final Long platformId;
+
+        Row(long lineNumber, String line, String keyCode, Long gameId, Long platformId) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.keyCode = keyCode;
+            this.gameId = gameId;
+            this.platformId = platformId;
+        }
+    }
+}
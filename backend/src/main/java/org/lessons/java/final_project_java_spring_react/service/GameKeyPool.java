@@ -0,0 +1,188 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.lessons.java.final_project_java_spring_react.model.GameKey;
+import org.lessons.java.final_project_java_spring_react.model.GameStockId;
+import org.lessons.java.final_project_java_spring_react.repository.GameKeyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pre-claimed key ids per (game, platform), so the hot allocation path is a
+ * lock-free queue poll instead of a locking query.
+ *
+ * Keys are pre-claimed in batches by flagging them pooled in the database:
+ * they still count as stock, but the claim query skips them, so no other
+ * instance or fallback path can hand them out. A pair gets a pool the first
+ * time it is requested; a background refill runs whenever it drops below the
+ * low-water mark.
+ *
+ * Pooled rows record the instance holding them and a lease it keeps renewing.
+ * Keys go back to the database on shutdown; keys of an instance that stopped
+ * without doing so are reclaimed by any instance once their lease runs out.
+ * A key is only claimed from a queue if this instance still holds it.
+ */
+@Component
+public class GameKeyPool {
+
+    @Autowired
+    private GameKeyRepository gameKeyRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${keypool.enabled:true}")
+    private boolean enabled;
+
+    @Value("${keypool.batch-size:20}")
+    private int batchSize;
+
+    @Value("${keypool.low-water-mark:5}")
+    private int lowWaterMark;
+
+    // Must be well above keypool.lease-renew-interval-ms
+    @Value("${keypool.lease-seconds:300}")
+    private long leaseSeconds;
+
+    // Identifies this instance's pooled rows
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Map<GameStockId, Pool> pools = new ConcurrentHashMap<>();
+
+    private final ExecutorService refiller = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "game-key-pool-refiller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Also runs once at startup, reclaiming what a crashed instance left behind
+    @Scheduled(fixedDelayString = "${keypool.lease-renew-interval-ms:60000}")
+    public void renewLeases() {
+        LocalDateTime now = LocalDateTime.now();
+        gameKeyRepository.renewPoolLease(instanceId, now.plusSeconds(leaseSeconds));
+
+        int released = gameKeyRepository.unpoolExpired(now);
+        if (released > 0) {
+            System.out.println("✓ Released " + released + " pooled keys whose instance stopped renewing them");
+        }
+    }
+
+    // Whether a key loaded (and locked) by the claim path is still pooled by this instance
+    public boolean isHeldHere(GameKey gameKey) {
+        return gameKey.isPooled() && instanceId.equals(gameKey.getPoolOwner());
+    }
+
+    /**
+     * Takes up to count pre-claimed key ids. The keys must still be checked by
+     * the caller: an admin may have edited or deleted one since it was pooled.
+     */
+    public List<Long> take(Long gameId, Long platformId, int count) {
+        List<Long> keyIds = new ArrayList<>(count);
+        if (!enabled) {
+            return keyIds;
+        }
+
+        Pool pool = pools.computeIfAbsent(new GameStockId(gameId, platformId), Pool::new);
+        Long keyId;
+        while (keyIds.size() < count && (keyId = pool.keyIds.poll()) != null) {
+            keyIds.add(keyId);
+        }
+        if (pool.keyIds.size() < lowWaterMark) {
+            scheduleRefill(pool);
+        }
+        if (!keyIds.isEmpty() && TransactionSynchronizationManager.isSynchronizationActive()) {
+            // The pooled flags are only cleared if the checkout commits: on rollback
+            // the keys are still pooled in the database, so put them back in the queue
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        pool.keyIds.addAll(keyIds);
+                    }
+                }
+            });
+        }
+        return keyIds;
+    }
+
+    private void scheduleRefill(Pool pool) {
+        // At most one refill in flight per pair
+        if (pool.refilling.compareAndSet(false, true)) {
+            refiller.execute(() -> {
+                try {
+                    refill(pool);
+                } catch (Exception e) {
+                    System.err.println("❌ Key pool refill failed for game " + pool.pair.getGameId()
+                            + " / platform " + pool.pair.getPlatformId() + ": " + e.getMessage());
+                } finally {
+                    pool.refilling.set(false);
+                }
+            });
+        }
+    }
+
+    private void refill(Pool pool) {
+        List<Long> claimed = transactionTemplate.execute(status -> {
+            List<Long> keyIds = new ArrayList<>();
+            LocalDateTime leaseUntil = LocalDateTime.now().plusSeconds(leaseSeconds);
+            for (GameKey gameKey : gameKeyRepository.findAvailableForUpdateSkipLocked(
+                    pool.pair.getGameId(), pool.pair.getPlatformId(), Limit.of(batchSize))) {
+                gameKey.setPooled(true);
+                gameKey.setPoolOwner(instanceId);
+                gameKey.setPoolLeaseUntil(leaseUntil);
+                keyIds.add(gameKey.getId());
+            }
+            return keyIds;
+        });
+        // Only publish the ids once the pooled flags are committed
+        pool.keyIds.addAll(claimed);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refiller.shutdownNow();
+        List<Long> keyIds = new ArrayList<>();
+        for (Pool pool : pools.values()) {
+            Long keyId;
+            while ((keyId = pool.keyIds.poll()) != null) {
+                keyIds.add(keyId);
+            }
+        }
+        if (!keyIds.isEmpty()) {
+            int returned = gameKeyRepository.unpool(keyIds, instanceId);
+            System.out.println("✓ Returned " + returned + " pooled keys to the database");
+        }
+    }
+
+    private static class Pool {
+
+        private final GameStockId pair;
+
+        private final Queue<Long> keyIds = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean refilling = new AtomicBoolean(false);
+
+        Pool(GameStockId pair) {
+            this.pair = pair;
+        }
+    }
+}
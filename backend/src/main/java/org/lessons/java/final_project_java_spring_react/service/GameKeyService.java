@@ -1,19 +1,58 @@
 package org.lessons.java.final_project_java_spring_react.service;
 
+import org.lessons.java.final_project_java_spring_react.dto.GameKeyRow;
 import org.lessons.java.final_project_java_spring_react.model.GameKey;
+import org.lessons.java.final_project_java_spring_react.model.GameStockId;
+import org.lessons.java.final_project_java_spring_react.model.Order;
 import org.lessons.java.final_project_java_spring_react.repository.GameKeyRepository;
+import org.lessons.java.final_project_java_spring_react.repository.GameRepository;
+import org.lessons.java.final_project_java_spring_react.repository.PlatformRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+/**
+ * Every GameKey state change goes through this service so the game_stock
+ * counters are adjusted in the same transaction as the key itself.
+ */
 @Service
 public class GameKeyService {
 
     @Autowired
     private GameKeyRepository gameKeyRepository;
 
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private PlatformRepository platformRepository;
+
+    @Autowired
+    private GameStockService gameStockService;
+
+    @Autowired
+    private GameKeyPool gameKeyPool;
+
+    @Autowired
+    private EntityManager entityManager;
+
     public List<GameKey> getAllGameKeys() {
         return gameKeyRepository.findAll();
     }
@@ -22,24 +61,188 @@ public class GameKeyService {
         return gameKeyRepository.findById(id);
     }
 
+    // Admin key browser, one page of projected rows (newest keys first)
+    public Page<GameKeyRow> browseKeys(Long gameId, Long platformId, Boolean sold, LocalDate soldFrom,
+            LocalDate soldTo, String search, int page, int size) {
+        String searchTerm = search != null && !search.isBlank() ? search.trim() : null;
+        return gameKeyRepository.browse(gameId, platformId, sold,
+                soldFrom != null ? soldFrom.atStartOfDay() : null,
+                soldTo != null ? soldTo.plusDays(1).atStartOfDay() : null,
+                searchTerm, PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "id")));
+    }
+
     public List<GameKey> getAvailableKeysByGameAndPlatform(Long gameId, Long platformId) {
-        return gameKeyRepository.findByGameIdAndPlatformIdAndIsSoldFalse(gameId, platformId);
+        return gameKeyRepository.findByGameIdAndPlatformIdAndIsSoldFalseAndOrderIsNull(gameId, platformId);
     }
 
     public Optional<GameKey> getFirstAvailableKey(Long gameId, Long platformId) {
-        return gameKeyRepository.findFirstByGameIdAndPlatformIdAndIsSoldFalse(gameId, platformId);
+        return gameKeyRepository.findFirstByGameIdAndPlatformIdAndIsSoldFalseAndOrderIsNull(gameId, platformId);
+    }
+
+    public long getAvailableStockCount(Long gameId) {
+        return gameStockService.getAvailableStock(gameId);
     }
 
-    public Integer getAvailableStockCount(Long gameId) {
-        return gameKeyRepository.countByGameIdAndIsSoldFalse(gameId);
+    @Transactional
+    public GameKey createGameKey(GameKey gameKey) {
+        GameKey savedKey = gameKeyRepository.save(gameKey);
+        if (isAvailable(savedKey)) {
+            gameStockService.adjust(savedKey.getGame().getId(), savedKey.getPlatform().getId(), 1);
+        }
+        return savedKey;
     }
 
-    public GameKey saveGameKey(GameKey gameKey) {
+    // Admin edit: the key may move to another game/platform or change its sold flag
+    @Transactional
+    public GameKey updateGameKey(Long id, GameKey changes) {
+        GameKey gameKey = gameKeyRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new RuntimeException("Game key not found"));
+
+        if (isAvailable(gameKey)) {
+            gameStockService.adjust(gameKey.getGame().getId(), gameKey.getPlatform().getId(), -1);
+        }
+
+        // Drop it from any key pool, its queue entry is skipped at claim time
+        gameKey.releaseFromPool();
+        gameKey.setKeyCode(changes.getKeyCode());
+        gameKey.setGame(gameRepository.getReferenceById(changes.getGame().getId()));
+        gameKey.setPlatform(platformRepository.getReferenceById(changes.getPlatform().getId()));
+        if (changes.isSold() && !gameKey.isSold()) {
+            gameKey.setSoldAt(LocalDateTime.now());
+        } else if (!changes.isSold()) {
+            gameKey.setSoldAt(null);
+        }
+        gameKey.setSold(changes.isSold());
+
+        if (isAvailable(gameKey)) {
+            gameStockService.adjust(gameKey.getGame().getId(), gameKey.getPlatform().getId(), 1);
+        }
         return gameKeyRepository.save(gameKey);
     }
 
+    @Transactional
     public void deleteGameKey(Long id) {
-        gameKeyRepository.deleteById(id);
+        gameKeyRepository.findByIdForUpdate(id).ifPresent(gameKey -> {
+            if (isAvailable(gameKey)) {
+                gameStockService.adjust(gameKey.getGame().getId(), gameKey.getPlatform().getId(), -1);
+            }
+            gameKeyRepository.delete(gameKey);
+        });
+    }
+
+    // Atomically claim distinct available keys for every (game, platform) of a cart
+    // (the caller's transaction saves the order). Pre-claimed keys from the pool are
+    // used first and loaded with a single query for the whole cart; the pairs the
+    // pool cannot serve fall back to one database claim for all of them, which skips
+    // rows locked by another checkout, so parallel buyers never receive the same key.
+    // A pair gets fewer keys than requested when its stock runs out.
+    @Transactional
+    public Map<GameStockId, List<GameKey>> claimKeys(Map<GameStockId, Integer> quantities, Order order) {
+        // A key's game and platform are eager: load them all now, not with one select per claimed key
+        Set<Long> gameIds = new HashSet<>();
+        Set<Long> platformIds = new HashSet<>();
+        for (GameStockId pair : quantities.keySet()) {
+            gameIds.add(pair.getGameId());
+            platformIds.add(pair.getPlatformId());
+        }
+        gameRepository.findAllById(gameIds);
+        platformRepository.findAllById(platformIds);
+
+        Map<Long, GameStockId> pooledPairs = new HashMap<>();
+        for (Map.Entry<GameStockId, Integer> entry : quantities.entrySet()) {
+            GameStockId pair = entry.getKey();
+            for (Long keyId : gameKeyPool.take(pair.getGameId(), pair.getPlatformId(), entry.getValue())) {
+                pooledPairs.put(keyId, pair);
+            }
+        }
+
+        Map<GameStockId, List<GameKey>> claimed = new LinkedHashMap<>();
+        quantities.keySet().forEach(pair -> claimed.put(pair, new ArrayList<>()));
+        if (!pooledPairs.isEmpty()) {
+            for (GameKey gameKey : gameKeyRepository.findAllForUpdateByIdIn(pooledPairs.keySet())) {
+                // Skip keys edited by an admin, or released from this instance's pool, since they were pooled
+                if (gameKeyPool.isHeldHere(gameKey) && isAvailable(gameKey)) {
+                    // Reserved before the claim below flushes them, or it could return them again
+                    gameKey.releaseFromPool();
+                    gameKey.setOrder(order);
+                    claimed.get(pooledPairs.get(gameKey.getId())).add(gameKey);
+                }
+            }
+        }
+
+        Map<GameStockId, Integer> missing = new LinkedHashMap<>();
+        claimed.forEach((pair, keys) -> {
+            if (keys.size() < quantities.get(pair)) {
+                missing.put(pair, quantities.get(pair) - keys.size());
+            }
+        });
+        if (!missing.isEmpty()) {
+            for (GameKey gameKey : claimAvailable(missing)) {
+                gameKey.setOrder(order);
+                claimed.get(new GameStockId(gameKey.getGame().getId(), gameKey.getPlatform().getId())).add(gameKey);
+            }
+        }
+
+        Map<GameStockId, Long> stockDeltas = new HashMap<>();
+        claimed.forEach((pair, keys) -> {
+            if (!keys.isEmpty()) {
+                stockDeltas.put(pair, (long) -keys.size());
+            }
+        });
+        gameStockService.adjust(stockDeltas);
+        return claimed;
+    }
+
+    // One statement for the whole cart: a LIMIT ... FOR UPDATE SKIP LOCKED select per pair
+    // (the same claim as GameKeyRepository.findAvailableForUpdateSkipLocked), joined by UNION ALL.
+    // Native MySQL 8 SQL, like the game_stock upserts: there is no H2 or other fallback.
+    @SuppressWarnings("unchecked")
+    private List<GameKey> claimAvailable(Map<GameStockId, Integer> quantities) {
+        Query query = entityManager.createNativeQuery(claimSql(quantities.size()), GameKey.class);
+        int position = 1;
+        for (Map.Entry<GameStockId, Integer> entry : quantities.entrySet()) {
+            query.setParameter(position++, entry.getKey().getGameId());
+            query.setParameter(position++, entry.getKey().getPlatformId());
+            query.setParameter(position++, entry.getValue());
+        }
+        return query.getResultList();
+    }
+
+    static String claimSql(int pairs) {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < pairs; i++) {
+            if (i > 0) {
+                sql.append(" UNION ALL ");
+            }
+            int first = i * 3 + 1;
+            sql.append("(SELECT * FROM game_keys WHERE game_id = ?").append(first)
+                    .append(" AND platform_id = ?").append(first + 1)
+                    .append(" AND is_sold = false AND order_id IS NULL AND pooled = false ORDER BY id LIMIT ?")
+                    .append(first + 2).append(" FOR UPDATE SKIP LOCKED)");
+        }
+        return sql.toString();
+    }
+
+    // Give a reserved (unsold) key back to the store
+    @Transactional
+    public void releaseKey(GameKey gameKey) {
+        if (!gameKey.isSold() && gameKey.getOrder() != null) {
+            gameKey.setOrder(null);
+            gameStockService.adjust(gameKey.getGame().getId(), gameKey.getPlatform().getId(), 1);
+        }
+    }
+
+    @Transactional
+    public void sellKey(GameKey gameKey) {
+        if (gameKey.isSold()) {
+            return;
+        }
+        // A reserved key was already taken out of the stock when it was reserved
+        if (gameKey.getOrder() == null) {
+            gameStockService.adjust(gameKey.getGame().getId(), gameKey.getPlatform().getId(), -1);
+        }
+        gameKey.setSold(true);
+        gameKey.setSoldAt(LocalDateTime.now());
     }
 
     // Alias for REST API consistency
@@ -47,7 +250,7 @@ public class GameKeyService {
         return getFirstAvailableKey(gameId, platformId).orElse(null);
     }
 
-    public List<GameKey> searchGameKeys(String search) {
-        return gameKeyRepository.searchByGameTitleOrKeyCode(search);
+    private boolean isAvailable(GameKey gameKey) {
+        return !gameKey.isSold() && gameKey.getOrder() == null;
     }
 }
@@ -1,23 +1,55 @@
 package org.lessons.java.final_project_java_spring_react.service;
 
+import org.lessons.java.final_project_java_spring_react.dto.CatalogPage;
+import org.lessons.java.final_project_java_spring_react.dto.CatalogSort;
+import org.lessons.java.final_project_java_spring_react.dto.GameCatalogItem;
 import org.lessons.java.final_project_java_spring_react.model.Game;
 import org.lessons.java.final_project_java_spring_react.repository.GameRepository;
+import org.lessons.java.final_project_java_spring_react.search.GameIndex;
+import org.lessons.java.final_project_java_spring_react.search.GameSearchIndex;
+import org.lessons.java.final_project_java_spring_react.search.TrigramIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class GameService {
 
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Cursor value of undated games, listed after every dated one when sorting by release date
+    private static final String UNDATED = "undated";
+
     @Autowired
     private GameRepository gameRepository;
 
+    @Autowired
+    private GameStockService gameStockService;
+
+    @Autowired
+    private GameSearchIndex gameSearchIndex;
+
+    @Autowired
+    private TrigramIndex trigramIndex;
+
+    // Every in-memory structure derived from games (search index, suggestions...)
+    @Autowired
+    private List<GameIndex> gameIndexes;
+
     public List<Game> findAll() {
-        // Use custom query to fetch gameKeys for accurate stock calculation
-        return gameRepository.findAllWithKeys();
+        return withStock(gameRepository.findAll());
     }
 
     public List<Game> findAllSortedByTitle() {
@@ -25,12 +57,13 @@ public class GameService {
     }
 
     public Optional<Game> findById(Long id) {
-        // Use custom query to fetch gameKeys for accurate stock calculation
-        return gameRepository.findByIdWithKeys(id);
+        Optional<Game> gameAttempt = gameRepository.findById(id);
+        gameAttempt.ifPresent(game -> game.setAvailableStock((int) gameStockService.getAvailableStock(id)));
+        return gameAttempt;
     }
 
     public Game getById(Long id) {
-        Optional<Game> gameAttempt = gameRepository.findByIdWithKeys(id);
+        Optional<Game> gameAttempt = findById(id);
 
         if (gameAttempt.isEmpty()) {
             // throw new NotFoundException();
@@ -40,29 +73,187 @@ public class GameService {
     }
 
     public List<Game> findByTitle(String title) {
-        // Use custom query to fetch gameKeys for accurate stock calculation
-        return gameRepository.findByTitleContainingIgnoreCaseWithKeys(title);
+        return withStock(gameRepository.findByTitleContainingIgnoreCase(title));
     }
 
     public List<Game> findGamesWithDiscounts() {
-        // Use custom query to fetch gameKeys for accurate stock calculation
-        return gameRepository.findByDiscountPercentageGreaterThanWithKeys(0);
+        return withStock(gameRepository.findByDiscountPercentageGreaterThan(0));
+    }
+
+    // Stock comes from the game_stock counters instead of loading every key
+    private List<Game> withStock(List<Game> games) {
+        if (games.isEmpty()) {
+            return games;
+        }
+        Map<Long, Map<Long, Long>> stockByGame = gameStockService.getStockByGame(
+                games.stream().map(Game::getId).toList());
+        for (Game game : games) {
+            long available = stockByGame.getOrDefault(game.getId(), Map.of()).values().stream()
+                    .mapToLong(Long::longValue)
+                    .sum();
+            game.setAvailableStock((int) available);
+        }
+        return games;
+    }
+
+    // Catalog read path: games + batched categories/platforms + the game_stock counters.
+    // Cost grows with the number of games, never with the number of keys.
+    @Transactional(readOnly = true)
+    public List<GameCatalogItem> findCatalog() {
+        return toCatalogItems(gameRepository.findAll(), gameStockService.getStockByGame());
+    }
+
+    // Search goes through the in-memory index (title, publisher, categories, platforms),
+    // results keep the index ranking. Falls back to a LIKE query until the index is built.
+    @Transactional(readOnly = true)
+    public List<GameCatalogItem> findCatalogByTitle(String title) {
+        if (!gameSearchIndex.isReady()) {
+            return toCatalogItems(gameRepository.findByTitleContainingIgnoreCase(title));
+        }
+        return toCatalogItems(findAllByIdInOrder(gameSearchIndex.search(title)));
+    }
+
+    // Typo tolerant search on titles, closest matches first
+    @Transactional(readOnly = true)
+    public List<GameCatalogItem> findCatalogByTitleFuzzy(String title) {
+        return toCatalogItems(findAllByIdInOrder(trigramIndex.search(title, 50)));
+    }
+
+    @Transactional(readOnly = true)
+    public List<GameCatalogItem> findCatalogWithDiscounts() {
+        return toCatalogItems(gameRepository.findByDiscountPercentageGreaterThan(0));
+    }
+
+    // Keyset-paginated catalog, cursor is the opaque value returned as nextCursor (null for page 1)
+    @Transactional(readOnly = true)
+    public CatalogPage findCatalogPage(CatalogSort sort, String cursor, int limit) {
+        return findPage(-1, sort, cursor, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public CatalogPage findCatalogPageWithDiscounts(CatalogSort sort, String cursor, int limit) {
+        return findPage(0, sort, cursor, limit);
+    }
+
+    private CatalogPage findPage(int minDiscount, CatalogSort sort, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether a next page exists without a COUNT query
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        String[] position = cursor != null ? decodeCursor(cursor, sort) : null;
+        long afterId = position != null ? Long.parseLong(position[0]) : 0L;
+
+        List<Game> games = switch (sort) {
+            case TITLE -> gameRepository.findPageByTitle(minDiscount,
+                    position != null ? position[1] : "", afterId, fetchLimit);
+            case PRICE -> gameRepository.findPageByPrice(minDiscount,
+                    position != null ? Double.valueOf(position[1]) : -1.0, afterId, fetchLimit);
+            case RATING -> gameRepository.findPageByRating(minDiscount,
+                    position != null ? Double.valueOf(position[1]) : Double.MAX_VALUE, afterId, fetchLimit);
+            case RELEASE_DATE -> findPageByReleaseDate(minDiscount, position, afterId, fetchLimit);
+        };
+
+        String nextCursor = null;
+        if (games.size() > pageSize) {
+            games = games.subList(0, pageSize);
+            nextCursor = encodeCursor(sort, games.get(pageSize - 1));
+        }
+        return new CatalogPage(toCatalogItems(games), nextCursor);
+    }
+
+    private List<Game> findPageByReleaseDate(int minDiscount, String[] position, long afterId, Limit fetchLimit) {
+        if (position != null && UNDATED.equals(position[1])) {
+            return gameRepository.findPageUndated(minDiscount, afterId, fetchLimit);
+        }
+        List<Game> games = gameRepository.findPageByReleaseDate(minDiscount,
+                position != null ? LocalDate.parse(position[1]) : LocalDate.of(9999, 12, 31), afterId, fetchLimit);
+        if (games.size() < fetchLimit.max()) {
+            // Dated games exhausted: fill the page with the first undated ones
+            games = new ArrayList<>(games);
+            games.addAll(gameRepository.findPageUndated(minDiscount, 0L, Limit.of(fetchLimit.max() - games.size())));
+        }
+        return games;
+    }
+
+    // Cursor format (before base64): SORT|lastId|lastSortValue
+    private String encodeCursor(CatalogSort sort, Game last) {
+        Object value = switch (sort) {
+            case TITLE -> last.getTitle();
+            case PRICE -> last.getPrice();
+            case RATING -> last.getAverageRating();
+            case RELEASE_DATE -> last.getReleaseDate() != null ? last.getReleaseDate().toString() : UNDATED;
+        };
+        String raw = sort.name() + "|" + last.getId() + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor, CatalogSort sort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3 || !parts[0].equals(sort.name())) {
+                throw new IllegalArgumentException("Cursor does not match sort " + sort);
+            }
+            Long.parseLong(parts[1]);
+            if (sort == CatalogSort.PRICE || sort == CatalogSort.RATING) {
+                Double.parseDouble(parts[2]);
+            } else if (sort == CatalogSort.RELEASE_DATE && !parts[2].equals(UNDATED)) {
+                LocalDate.parse(parts[2]);
+            }
+            return new String[] { parts[1], parts[2] };
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private List<Game> findAllByIdInOrder(List<Long> ids) {
+        Map<Long, Game> gamesById = new HashMap<>();
+        for (Game game : gameRepository.findAllById(ids)) {
+            gamesById.put(game.getId(), game);
+        }
+        return ids.stream()
+                .map(gamesById::get)
+                .filter(game -> game != null)
+                .toList();
+    }
+
+    private List<GameCatalogItem> toCatalogItems(List<Game> games) {
+        if (games.isEmpty()) {
+            return List.of();
+        }
+        List<Long> gameIds = games.stream().map(Game::getId).toList();
+        return toCatalogItems(games, gameStockService.getStockByGame(gameIds));
+    }
+
+    private List<GameCatalogItem> toCatalogItems(List<Game> games, Map<Long, Map<Long, Long>> stockByGame) {
+        return games.stream()
+                .map(game -> new GameCatalogItem(game, stockByGame.getOrDefault(game.getId(), Map.of())))
+                .toList();
     }
 
     public Game create(Game game) {
-        return gameRepository.save(game);
+        Game savedGame = gameRepository.save(game);
+        gameIndexes.forEach(index -> index.index(savedGame));
+        return savedGame;
     }
 
     public Game update(Game game) {
-        return gameRepository.save(game);
+        Game savedGame = gameRepository.save(game);
+        gameIndexes.forEach(index -> index.index(savedGame));
+        return savedGame;
     }
 
+    @Transactional
     public void delete(Game game) {
         gameRepository.delete(game);
+        gameStockService.deleteByGameId(game.getId());
+        gameIndexes.forEach(index -> index.remove(game.getId()));
     }
 
+    @Transactional
     public void deleteById(Long id) {
         gameRepository.deleteById(id);
+        gameStockService.deleteByGameId(id);
+        gameIndexes.forEach(index -> index.remove(id));
     }
 
     public Boolean existsById(Long id) {
@@ -0,0 +1,147 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.lessons.java.final_project_java_spring_react.dto.StockCount;
+import org.lessons.java.final_project_java_spring_react.model.GameStock;
+import org.lessons.java.final_project_java_spring_react.model.GameStockId;
+import org.lessons.java.final_project_java_spring_react.repository.GameKeyRepository;
+import org.lessons.java.final_project_java_spring_react.repository.GameStockRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reads and maintains the game_stock counters. Stock reads are primary key
+ * lookups instead of COUNTs over game_keys.
+ */
+@Service
+public class GameStockService {
+
+    @Autowired
+    private GameStockRepository gameStockRepository;
+
+    @Autowired
+    private GameKeyRepository gameKeyRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public long getAvailableStock(Long gameId, Long platformId) {
+        return gameStockRepository.findById(new GameStockId(gameId, platformId))
+                .map(GameStock::getAvailable)
+                .orElse(0L);
+    }
+
+    // Batch lookup answered by a single primary key IN query, missing pairs count as 0
+    public Map<GameStockId, Long> getAvailableStock(Collection<GameStockId> pairs) {
+        Map<GameStockId, Long> stock = new LinkedHashMap<>();
+        for (GameStockId pair : pairs) {
+            stock.put(pair, 0L);
+        }
+        for (GameStock row : gameStockRepository.findAllById(stock.keySet())) {
+            stock.put(row.getId(), row.getAvailable());
+        }
+        return stock;
+    }
+
+    public long getAvailableStock(Long gameId) {
+        return gameStockRepository.sumAvailableByGameId(gameId);
+    }
+
+    // gameId -> (platformId -> available keys)
+    public Map<Long, Map<Long, Long>> getStockByGame() {
+        return toStockMap(gameStockRepository.findAll());
+    }
+
+    public Map<Long, Map<Long, Long>> getStockByGame(List<Long> gameIds) {
+        return toStockMap(gameStockRepository.findByIdGameIdIn(gameIds));
+    }
+
+    // Must run inside the transaction that changes the GameKey
+    public void adjust(Long gameId, Long platformId, long delta) {
+        gameStockRepository.adjust(gameId, platformId, delta);
+    }
+
+    // Several counters in one JDBC batch (same upsert as GameStockRepository.adjust)
+    public void adjust(Map<GameStockId, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<GameStockId, Long>> rows = new ArrayList<>(deltas.entrySet());
+        jdbcTemplate.batchUpdate("INSERT INTO game_stock (game_id, platform_id, available) VALUES (?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE available = available + VALUES(available)", rows, rows.size(),
+                (ps, row) -> {
+                    ps.setLong(1, row.getKey().getGameId());
+                    ps.setLong(2, row.getKey().getPlatformId());
+                    ps.setLong(3, row.getValue());
+                });
+    }
+
+    public void deleteByGameId(Long gameId) {
+        gameStockRepository.deleteByGameId(gameId);
+    }
+
+    // Re-derive every counter from game_keys. Runs at startup (keys from data.sql
+    // bypass the service) and nightly as a safety net against drift.
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${stock.reconcile.cron:0 0 4 * * *}")
+    public void reconcile() {
+        Set<GameStockId> pairs = new HashSet<>();
+        for (StockCount count : gameKeyRepository.countAvailableGroupedByGameAndPlatform()) {
+            pairs.add(new GameStockId(count.getGameId(), count.getPlatformId()));
+        }
+        for (GameStock row : gameStockRepository.findAll()) {
+            pairs.add(row.getId());
+        }
+
+        int corrected = 0;
+        for (GameStockId pair : pairs) {
+            // One short transaction per pair: lock the counter, recount, fix
+            Boolean changed = transactionTemplate.execute(status -> reconcile(pair));
+            if (Boolean.TRUE.equals(changed)) {
+                corrected++;
+            }
+        }
+        System.out.println("✓ Stock reconciliation checked " + pairs.size() + " counters, corrected " + corrected);
+    }
+
+    private boolean reconcile(GameStockId pair) {
+        GameStock row = gameStockRepository.findByIdForUpdate(pair).orElse(null);
+        long actual = gameKeyRepository.countByGameIdAndPlatformIdAndIsSoldFalseAndOrderIsNull(
+                pair.getGameId(), pair.getPlatformId());
+
+        if (row == null) {
+            gameStockRepository.adjust(pair.getGameId(), pair.getPlatformId(), actual);
+            return true;
+        }
+        if (row.getAvailable() != actual) {
+            row.setAvailable(actual);
+            return true;
+        }
+        return false;
+    }
+
+    private Map<Long, Map<Long, Long>> toStockMap(List<GameStock> rows) {
+        Map<Long, Map<Long, Long>> stockByGame = new HashMap<>();
+        for (GameStock row : rows) {
+            stockByGame.computeIfAbsent(row.getId().getGameId(), id -> new HashMap<>())
+                    .put(row.getId().getPlatformId(), row.getAvailable());
+        }
+        return stockByGame;
+    }
+}
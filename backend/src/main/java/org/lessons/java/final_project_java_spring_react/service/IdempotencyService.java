@@ -0,0 +1,148 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.lessons.java.final_project_java_spring_react.model.IdempotencyRecord;
+import org.lessons.java.final_project_java_spring_react.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Idempotency-Key support for checkout session creation.
+ *
+ * The idempotency_keys table is the source of truth, so a repeat is recognized
+ * whichever instance it lands on. Completed responses never change, so each
+ * instance also keeps the most recent ones in a bounded LRU map and answers
+ * most repeats (double-clicks, client retries) without a query.
+ */
+@Service
+public class IdempotencyService {
+
+    // A claim whose request never completed (crashed instance) blocks its key this long
+    private static final int IN_PROGRESS_LEASE_MINUTES = 2;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Value("${idempotency.ttl-hours:24}")
+    private int ttlHours;
+
+    private final Map<String, IdempotencyRecord> cache;
+
+    public IdempotencyService(@Value("${idempotency.cache-size:10000}") int cacheSize) {
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * The completed response stored for this key, or null if the key is new,
+     * expired or its first request is still running.
+     */
+    public IdempotencyRecord findCompleted(Integer userId, String idempotencyKey) {
+        String cacheKey = cacheKey(userId, idempotencyKey);
+        LocalDateTime now = LocalDateTime.now();
+
+        synchronized (cache) {
+            IdempotencyRecord cached = cache.get(cacheKey);
+            if (cached != null) {
+                if (cached.getExpiresAt().isAfter(now)) {
+                    return cached;
+                }
+                cache.remove(cacheKey);
+            }
+        }
+
+        IdempotencyRecord record = findCurrent(userId, idempotencyKey);
+        return record != null && record.isCompleted() ? record : null;
+    }
+
+    /**
+     * The record holding this key, completed or still running, or null if the
+     * key is new or expired. Always read from the database.
+     */
+    public IdempotencyRecord findCurrent(Integer userId, String idempotencyKey) {
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord record = idempotencyRecordRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                .filter(r -> r.getExpiresAt().isAfter(now))
+                .orElse(null);
+        if (record != null && record.isCompleted()) {
+            remember(cacheKey(userId, idempotencyKey), record);
+        }
+        return record;
+    }
+
+    /**
+     * Reserves the key for a first request. Returns false if another request
+     * with the same key holds it (or has already completed).
+     */
+    public boolean claim(Integer userId, String idempotencyKey, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        idempotencyRecordRepository.deleteIfExpired(userId, idempotencyKey, now);
+        try {
+            idempotencyRecordRepository.claim(userId, idempotencyKey, requestHash, now,
+                    now.plusMinutes(IN_PROGRESS_LEASE_MINUTES));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    public void complete(Integer userId, String idempotencyKey, String requestHash, String sessionId,
+            String sessionUrl, Long orderId) {
+        LocalDateTime expiresAt = LocalDateTime.now().plusHours(ttlHours);
+        idempotencyRecordRepository.complete(userId, idempotencyKey, sessionId, sessionUrl, orderId, expiresAt);
+
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setUserId(userId);
+        record.setIdempotencyKey(idempotencyKey);
+        record.setRequestHash(requestHash);
+        record.setSessionId(sessionId);
+        record.setSessionUrl(sessionUrl);
+        record.setOrderId(orderId);
+        record.setExpiresAt(expiresAt);
+        remember(cacheKey(userId, idempotencyKey), record);
+    }
+
+    // The first request failed: let the client retry with the same key
+    public void release(Integer userId, String idempotencyKey) {
+        idempotencyRecordRepository.release(userId, idempotencyKey);
+    }
+
+    @Scheduled(cron = "${idempotency.cleanup-cron:0 15 * * * *}")
+    public void deleteExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (cache) {
+            Iterator<IdempotencyRecord> records = cache.values().iterator();
+            while (records.hasNext()) {
+                if (!records.next().getExpiresAt().isAfter(now)) {
+                    records.remove();
+                }
+            }
+        }
+
+        int deleted = idempotencyRecordRepository.deleteExpired(now);
+        if (deleted > 0) {
+            System.out.println("✓ Deleted " + deleted + " expired idempotency keys");
+        }
+    }
+
+    private void remember(String cacheKey, IdempotencyRecord record) {
+        synchronized (cache) {
+            cache.put(cacheKey, record);
+        }
+    }
+
+    private static String cacheKey(Integer userId, String idempotencyKey) {
+        return userId + ":" + idempotencyKey;
+    }
+}
@@ -0,0 +1,245 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.lessons.java.final_project_java_spring_react.model.NewsletterCampaign;
+import org.lessons.java.final_project_java_spring_react.model.NewsletterDelivery;
+import org.lessons.java.final_project_java_spring_react.model.NewsletterSubscriber;
+import org.lessons.java.final_project_java_spring_react.repository.NewsletterCampaignRepository;
+import org.lessons.java.final_project_java_spring_react.repository.NewsletterDeliveryRepository;
+import org.lessons.java.final_project_java_spring_react.repository.NewsletterSubscriberRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Sends newsletter campaigns in the background.
+ *
+ * Active subscribers are read in keyset pages; each page is split into
+ * batches sent by newsletter.smtp-connections workers, every batch over one
+ * SMTP connection, paced to newsletter.rate-per-second overall. Per-recipient
+ * results go to newsletter_deliveries and the campaign cursor is saved after
+ * each page, so after a crash the campaign resumes from its last page and
+ * skips whoever was already handled.
+ *
+ * A campaign is sent by whichever instance holds its lease; the lease is
+ * renewed after every batch and taken over by another instance once it lapses.
+ * Each instance sends one campaign at a time.
+ */
+@Service
+public class NewsletterSender {
+
+    // Lease on top of the longest a batch may wait for its send slots
+    private static final int LEASE_MARGIN_MINUTES = 5;
+
+    private static final String INSERT_DELIVERY_SQL = "INSERT IGNORE INTO newsletter_deliveries "
+            + "(campaign_id, subscriber_id, email, status, error, sent_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private NewsletterCampaignRepository campaignRepository;
+
+    @Autowired
+    private NewsletterSubscriberRepository subscriberRepository;
+
+    @Autowired
+    private NewsletterDeliveryRepository deliveryRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${newsletter.page-size:500}")
+    private int pageSize;
+
+    @Value("${newsletter.batch-size:20}")
+    private int batchSize;
+
+    // 0 or less: no limit
+    @Value("${newsletter.rate-per-second:10}")
+    private double ratePerSecond;
+
+    private final ExecutorService campaignRunner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "newsletter-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ExecutorService smtpWorkers;
+
+    private final int smtpConnections;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    // Earliest System.nanoTime() at which the next message may go out
+    private final AtomicLong nextSendSlot = new AtomicLong(0);
+
+    public NewsletterSender(@Value("${newsletter.smtp-connections:2}") int smtpConnections) {
+        this.smtpConnections = smtpConnections;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.smtpWorkers = Executors.newFixedThreadPool(smtpConnections, runnable -> {
+            Thread thread = new Thread(runnable, "newsletter-smtp-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public NewsletterCampaign createCampaign(String subject, String htmlContent) {
+        NewsletterCampaign campaign = campaignRepository.save(
+                new NewsletterCampaign(subject, htmlContent, subscriberRepository.countByActiveTrue()));
+        start(campaign.getId());
+        return campaign;
+    }
+
+    public NewsletterCampaign getCampaign(Long id) {
+        return campaignRepository.findById(id).orElseThrow(() -> new RuntimeException("Campaign not found"));
+    }
+
+    // Picks up queued campaigns, and campaigns left behind by a crashed or stopped instance
+    @Scheduled(fixedDelayString = "${newsletter.resume-interval-ms:30000}")
+    public void resumeUnclaimed() {
+        for (Long campaignId : campaignRepository.findUnclaimedIds(LocalDateTime.now())) {
+            if (!start(campaignId)) {
+                return;
+            }
+        }
+    }
+
+    // False if this instance is already sending a campaign
+    private boolean start(Long campaignId) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (campaignRepository.claim(campaignId, now, leaseUntil()) == 0) {
+            running.set(false);
+            return true;
+        }
+        campaignRunner.execute(() -> {
+            try {
+                run(campaignId);
+            } catch (Exception e) {
+                // The lease lapses and the campaign is resumed from its last saved page
+                System.err.println("❌ Newsletter campaign " + campaignId + " interrupted: " + e.getMessage());
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    private void run(Long campaignId) throws Exception {
+        NewsletterCampaign campaign = getCampaign(campaignId);
+        if (campaign.getStartedAt() == null) {
+            campaign.setStartedAt(LocalDateTime.now());
+            campaign.setStatus(NewsletterCampaign.SENDING);
+            campaign = campaignRepository.save(campaign);
+        }
+        long startTime = System.currentTimeMillis();
+        long cursor = campaign.getLastSubscriberId();
+
+        while (true) {
+            List<NewsletterSubscriber> page = subscriberRepository.findActivePage(cursor, Limit.of(pageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+
+            Set<Long> handled = new HashSet<>(deliveryRepository.findHandledSubscriberIds(campaignId,
+                    page.stream().map(NewsletterSubscriber::getId).toList()));
+            List<NewsletterSubscriber> toSend = page.stream()
+                    .filter(subscriber -> !handled.contains(subscriber.getId()))
+                    .toList();
+
+            List<Future<Integer>> batches = new ArrayList<>();
+            for (int from = 0; from < toSend.size(); from += batchSize) {
+                List<NewsletterSubscriber> batch = toSend.subList(from, Math.min(toSend.size(), from + batchSize));
+                NewsletterCampaign current = campaign;
+                batches.add(smtpWorkers.submit(() -> sendBatch(current, batch)));
+            }
+            long failed = 0;
+            for (Future<Integer> batch : batches) {
+                failed += batch.get();
+            }
+
+            cursor = page.get(page.size() - 1).getId();
+            campaignRepository.saveProgress(campaignId, cursor, toSend.size() - failed, failed, leaseUntil());
+        }
+
+        campaign = getCampaign(campaignId);
+        campaign.setStatus(NewsletterCampaign.COMPLETED);
+        campaign.setFinishedAt(LocalDateTime.now());
+        campaign.setLeaseUntil(null);
+        campaignRepository.save(campaign);
+        System.out.println("✓ Newsletter campaign " + campaignId + " sent: " + campaign.getSentCount() + " sent, "
+                + campaign.getFailedCount() + " failed in " + (System.currentTimeMillis() - startTime) + "ms");
+    }
+
+    // Returns the number of failed recipients
+    private int sendBatch(NewsletterCampaign campaign, List<NewsletterSubscriber> batch) throws InterruptedException {
+        awaitRate(batch.size());
+        Map<String, String> failures = emailService.sendNewsletterBatch(campaign.getSubject(),
+                campaign.getHtmlContent(), batch.stream().map(NewsletterSubscriber::getEmail).toList());
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_DELIVERY_SQL, batch, batch.size(), (ps, subscriber) -> {
+            String error = failures.get(subscriber.getEmail());
+            ps.setLong(1, campaign.getId());
+            ps.setLong(2, subscriber.getId());
+            ps.setString(3, subscriber.getEmail());
+            ps.setString(4, error == null ? NewsletterDelivery.SENT : NewsletterDelivery.FAILED);
+            ps.setString(5, error == null ? null : error.length() > 1024 ? error.substring(0, 1024) : error);
+            ps.setTimestamp(6, now);
+        });
+        // A page can take longer than the lease when the rate is low
+        campaignRepository.renewLease(campaign.getId(), leaseUntil());
+        return failures.size();
+    }
+
+    // Every worker may have a full batch of slots reserved ahead of the next one
+    private LocalDateTime leaseUntil() {
+        long slotWaitSeconds = ratePerSecond > 0 ? (long) Math.ceil(smtpConnections * batchSize / ratePerSecond) : 0;
+        return LocalDateTime.now().plusSeconds(slotWaitSeconds).plusMinutes(LEASE_MARGIN_MINUTES);
+    }
+
+    // Reserves send slots for count messages and waits for the first one
+    private void awaitRate(int count) throws InterruptedException {
+        if (ratePerSecond <= 0) {
+            return;
+        }
+        long interval = (long) (1_000_000_000L / ratePerSecond);
+        while (true) {
+            long reserved = nextSendSlot.get();
+            long now = System.nanoTime();
+            long start = Math.max(reserved, now);
+            if (nextSendSlot.compareAndSet(reserved, start + count * interval)) {
+                TimeUnit.NANOSECONDS.sleep(start - now);
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        campaignRunner.shutdownNow();
+        smtpWorkers.shutdownNow();
+    }
+}
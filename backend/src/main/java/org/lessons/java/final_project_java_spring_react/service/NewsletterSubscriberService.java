@@ -0,0 +1,96 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.lessons.java.final_project_java_spring_react.dto.SubscriberPage;
+import org.lessons.java.final_project_java_spring_react.model.NewsletterSubscriber;
+import org.lessons.java.final_project_java_spring_react.model.OutboxEmail;
+import org.lessons.java.final_project_java_spring_react.repository.NewsletterSubscriberRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Newsletter sign-ups and admin reads of the subscriber list. Memory use of
+ * the reads does not depend on the number of subscribers: the listing is
+ * keyset-paginated and the CSV export is streamed from the database straight
+ * to the response.
+ */
+@Service
+public class NewsletterSubscriberService {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    @Autowired
+    private NewsletterSubscriberRepository subscriberRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EmailOutbox emailOutbox;
+
+    // Saves the subscriber and queues its welcome email in the same transaction
+    @Transactional
+    public NewsletterSubscriber subscribe(NewsletterSubscriber subscriber) {
+        NewsletterSubscriber saved = subscriberRepository.save(subscriber);
+        emailOutbox.enqueue(OutboxEmail.NEWSLETTER_WELCOME, saved.getId());
+        return saved;
+    }
+
+    // Cursor is the nextCursor of the previous page (null for page 1)
+    public SubscriberPage findActivePage(Long cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether a next page exists without a COUNT query
+        List<NewsletterSubscriber> subscribers = subscriberRepository.findActivePage(
+                cursor != null ? cursor : 0L, Limit.of(pageSize + 1));
+
+        Long nextCursor = null;
+        if (subscribers.size() > pageSize) {
+            subscribers = subscribers.subList(0, pageSize);
+            nextCursor = subscribers.get(pageSize - 1).getId();
+        }
+        return new SubscriberPage(subscribers, nextCursor);
+    }
+
+    // CSV columns: id,email,subscribedAt,active. Returns the number of rows written.
+    @Transactional(readOnly = true)
+    public long exportCsv(Writer writer) throws IOException {
+        long rows = 0;
+        writer.write("id,email,subscribedAt,active\r\n");
+        try (Stream<NewsletterSubscriber> subscribers = subscriberRepository.streamAll()) {
+            Iterator<NewsletterSubscriber> iterator = subscribers.iterator();
+            while (iterator.hasNext()) {
+                NewsletterSubscriber subscriber = iterator.next();
+                writer.write(subscriber.getId() + "," + csvField(subscriber.getEmail()) + ","
+                        + (subscriber.getSubscribedAt() != null ? subscriber.getSubscribedAt() : "") + ","
+                        + subscriber.isActive() + "\r\n");
+                // Keep the persistence context from growing with the list
+                entityManager.detach(subscriber);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    // RFC 4180 quoting, plus a leading quote against formula injection in spreadsheets
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -1,19 +1,46 @@
 package org.lessons.java.final_project_java_spring_react.service;
 
+import org.lessons.java.final_project_java_spring_react.dto.CartLine;
+import org.lessons.java.final_project_java_spring_react.dto.CartQuote;
+import org.lessons.java.final_project_java_spring_react.dto.CartQuoteLine;
+import org.lessons.java.final_project_java_spring_react.model.GameKey;
+import org.lessons.java.final_project_java_spring_react.model.GameStockId;
 import org.lessons.java.final_project_java_spring_react.model.Order;
+import org.lessons.java.final_project_java_spring_react.model.OutboxEmail;
+import org.lessons.java.final_project_java_spring_react.model.User;
 import org.lessons.java.final_project_java_spring_react.repository.OrderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.TreeMap;
 
 @Service
 public class OrderService {
 
+    private static final int RESERVATION_GRACE_MINUTES = 5;
+
+    @Value("${checkout.session-ttl-minutes:30}")
+    private int sessionTtlMinutes;
+
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private GameKeyService gameKeyService;
+
+    @Autowired
+    private EmailOutbox emailOutbox;
+
     public List<Order> getAllOrders() {
         return orderRepository.findAll();
     }
@@ -31,11 +58,135 @@ public class OrderService {
     }
 
     public Order saveOrder(Order order) {
-        // Always calculate total price from game keys before saving
-        order.calculateTotalPrice();
+        // The total is fixed when the order is created: later price changes must not alter it
+        if (order.getTotalPrice() == null) {
+            order.calculateTotalPrice();
+        }
+        return orderRepository.save(order);
+    }
+
+    // Checkout: reserve one key per quoted line for a Stripe session, the total is the
+    // quoted amount Stripe charges. Fails (and rolls back every reservation) if any
+    // line is out of stock.
+    @Transactional
+    public Order createPendingOrder(User user, String stripeSessionId, CartQuote quote) {
+        List<CartLine> lines = new ArrayList<>();
+        for (CartQuoteLine line : quote.getLines()) {
+            lines.add(new CartLine(line.getGameId(), line.getPlatformId()));
+        }
+
+        Order order = new Order();
+        order.setTotalPrice(quote.getTotal());
+        order.setUser(user);
+        order.setPaymentStatus("PENDING");
+        order.setStripePaymentIntentId(stripeSessionId);
+        // The Stripe session expires first, the grace period covers late success redirects
+        order.setReservedUntil(LocalDateTime.now().plusMinutes(sessionTtlMinutes + RESERVATION_GRACE_MINUTES));
+        order.setGameKeys(reserveKeys(order, lines));
+        return orderRepository.save(order);
+    }
+
+    @Transactional
+    public Order completeOrder(Long orderId, String paymentMethod) {
+        Order order = orderRepository.findByIdForUpdate(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+
+        if ("FAILED".equals(order.getPaymentStatus())) {
+            // Cancelled or expired: the keys went back to the store
+            throw new RuntimeException("Order reservation has expired");
+        }
+        if (!"COMPLETED".equals(order.getPaymentStatus())) {
+            order.setPaymentStatus("COMPLETED");
+            order.setPaymentMethod(paymentMethod);
+            for (GameKey key : order.getGameKeys()) {
+                gameKeyService.sellKey(key);
+            }
+            // Committed with the order, sent in the background
+            emailOutbox.enqueue(OutboxEmail.ORDER_CONFIRMATION, order.getId());
+        }
+        return orderRepository.save(order);
+    }
+
+    @Transactional
+    public Order cancelOrder(Long orderId) {
+        Order order = orderRepository.findByIdForUpdate(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+
+        releaseReservation(order);
         return orderRepository.save(order);
     }
 
+    // Used by ReservationReaper, once the Stripe session can no longer be paid.
+    // Returns the number of keys given back to the store, empty if the order was not expired.
+    @Transactional
+    public OptionalInt expireOrder(Long orderId) {
+        Order order = orderRepository.findByIdForUpdate(orderId).orElse(null);
+        // Re-checked under the row lock: the order may have been paid meanwhile
+        if (order == null || !"PENDING".equals(order.getPaymentStatus()) || order.getReservedUntil() == null
+                || order.getReservedUntil().isAfter(LocalDateTime.now())) {
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of(releaseReservation(order));
+    }
+
+    // Used by ReservationReaper while Stripe is still settling an async payment
+    @Transactional
+    public void postponeExpiry(Long orderId) {
+        orderRepository.findByIdForUpdate(orderId)
+                .filter(order -> "PENDING".equals(order.getPaymentStatus()))
+                .ifPresent(order -> order.setReservedUntil(LocalDateTime.now().plusMinutes(RESERVATION_GRACE_MINUTES)));
+    }
+
+    public List<Long> findExpiredReservations(int limit) {
+        return orderRepository.findExpiredPendingIds(LocalDateTime.now(), Limit.of(limit));
+    }
+
+    private int releaseReservation(Order order) {
+        if (!"PENDING".equals(order.getPaymentStatus())) {
+            return 0;
+        }
+        order.setPaymentStatus("FAILED");
+        order.setReservedUntil(null);
+        for (GameKey key : order.getGameKeys()) {
+            gameKeyService.releaseKey(key);
+        }
+        return order.getGameKeys().size();
+    }
+
+    // Direct purchase without Stripe: reserve and sell in one transaction
+    @Transactional
+    public Order placeOrder(User user, String paymentMethod, List<CartLine> lines) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setPaymentMethod(paymentMethod);
+        order.setPaymentStatus("COMPLETED");
+        List<GameKey> keys = reserveKeys(order, lines);
+        for (GameKey key : keys) {
+            gameKeyService.sellKey(key);
+        }
+        order.setGameKeys(keys);
+        return saveOrder(order);
+    }
+
+    // Lines are grouped per (game, platform) and claimed in a fixed order, so two
+    // carts sharing titles always lock rows in the same sequence (no deadlocks)
+    private List<GameKey> reserveKeys(Order order, List<CartLine> lines) {
+        Map<GameStockId, Integer> quantities = new TreeMap<>(
+                Comparator.comparing(GameStockId::getGameId).thenComparing(GameStockId::getPlatformId));
+        for (CartLine line : lines) {
+            quantities.merge(new GameStockId(line.getGameId(), line.getPlatformId()), 1, Integer::sum);
+        }
+
+        List<GameKey> keys = new ArrayList<>();
+        for (Map.Entry<GameStockId, List<GameKey>> entry : gameKeyService.claimKeys(quantities, order).entrySet()) {
+            if (entry.getValue().size() < quantities.get(entry.getKey())) {
+                throw new RuntimeException("No available key for game " + entry.getKey().getGameId());
+            }
+            keys.addAll(entry.getValue());
+        }
+        return keys;
+    }
+
     public void deleteOrder(Long id) {
         orderRepository.deleteById(id);
     }
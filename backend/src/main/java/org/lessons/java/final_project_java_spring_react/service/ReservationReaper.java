@@ -0,0 +1,172 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.lessons.java.final_project_java_spring_react.model.Order;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.stripe.model.checkout.Session;
+
+/**
+ * Gives the keys of abandoned checkouts (PENDING orders past reservedUntil)
+ * back to the store, capped per run so a backlog is worked off over several
+ * runs.
+ *
+ * The Stripe session is expired first, so it can no longer be paid once its
+ * keys are back on sale. Sessions that were paid meanwhile (a missed or late
+ * webhook) complete their order instead, and async payments still being
+ * settled keep their reservation a little longer. Each order is handled in
+ * its own transaction: one failure doesn't hold back the others.
+ */
+@Service
+public class ReservationReaper {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StripeService stripeService;
+
+    @Value("${checkout.reaper.chunk-size:50}")
+    private int chunkSize;
+
+    @Value("${checkout.reaper.max-chunks-per-run:20}")
+    private int maxChunksPerRun;
+
+    // Running totals since startup
+    private final AtomicLong runs = new AtomicLong();
+
+    private final AtomicLong ordersExpired = new AtomicLong();
+
+    private final AtomicLong ordersCompleted = new AtomicLong();
+
+    private final AtomicLong keysReclaimed = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private volatile long lastRunKeysReclaimed = 0;
+
+    // Longest wait past reservedUntil before an order's keys went back on sale, in the latest run
+    private volatile long lastRunMaxExpiryLagMs = 0;
+
+    private enum Outcome {
+        EXPIRED, COMPLETED, POSTPONED, SKIPPED
+    }
+
+    @Scheduled(fixedDelayString = "${checkout.reaper.interval-ms:60000}")
+    public void reap() {
+        long startTime = System.currentTimeMillis();
+        int expired = 0;
+        int completed = 0;
+        int failed = 0;
+        int keys = 0;
+        long maxLagMs = 0;
+
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            List<Long> orderIds = orderService.findExpiredReservations(chunkSize);
+            if (orderIds.isEmpty()) {
+                break;
+            }
+
+            int chunkFailures = 0;
+            for (Long orderId : orderIds) {
+                try {
+                    OptionalInt released = OptionalInt.empty();
+                    Order order = orderService.getOrderById(orderId).orElse(null);
+                    Outcome outcome = checkSession(order);
+                    if (outcome == Outcome.EXPIRED) {
+                        released = orderService.expireOrder(orderId);
+                    }
+                    if (released.isPresent()) {
+                        expired++;
+                        keys += released.getAsInt();
+                        maxLagMs = Math.max(maxLagMs,
+                                Duration.between(order.getReservedUntil(), LocalDateTime.now()).toMillis());
+                    } else if (outcome == Outcome.COMPLETED) {
+                        completed++;
+                    }
+                } catch (Exception e) {
+                    chunkFailures++;
+                    System.err.println("❌ Reservation reaper failed on order " + orderId + ": " + e.getMessage());
+                }
+            }
+            failed += chunkFailures;
+
+            // Failed orders are still expired and would come back in the next chunk: retry next run
+            if (chunkFailures > 0 || orderIds.size() < chunkSize) {
+                break;
+            }
+        }
+
+        runs.incrementAndGet();
+        ordersExpired.addAndGet(expired);
+        ordersCompleted.addAndGet(completed);
+        keysReclaimed.addAndGet(keys);
+        failures.addAndGet(failed);
+        lastRunKeysReclaimed = keys;
+        lastRunMaxExpiryLagMs = maxLagMs;
+
+        if (expired + completed + failed > 0) {
+            System.out.println("✓ Reservation reaper expired " + expired + " orders (" + keys
+                    + " keys reclaimed, up to " + maxLagMs + "ms past reservedUntil), completed " + completed
+                    + " paid orders, " + failed + " failed in " + (System.currentTimeMillis() - startTime) + "ms");
+        }
+    }
+
+    private Outcome checkSession(Order order) throws Exception {
+        if (order == null) {
+            return Outcome.SKIPPED;
+        }
+        if (order.getStripePaymentIntentId() == null) {
+            return Outcome.EXPIRED;
+        }
+
+        Session session = stripeService.expireSession(order.getStripePaymentIntentId());
+        if ("paid".equals(session.getPaymentStatus())) {
+            orderService.completeOrder(order.getId(), session.getPaymentMethodTypes().get(0));
+            return Outcome.COMPLETED;
+        }
+        if (!"expired".equals(session.getStatus())) {
+            // Complete but unpaid: an async payment method, Stripe will settle it later
+            orderService.postponeExpiry(order.getId());
+            return Outcome.POSTPONED;
+        }
+        return Outcome.EXPIRED;
+    }
+
+    // Metrics
+    public long getRuns() {
+        return runs.get();
+    }
+
+    public long getOrdersExpired() {
+        return ordersExpired.get();
+    }
+
+    public long getOrdersCompleted() {
+        return ordersCompleted.get();
+    }
+
+    public long getKeysReclaimed() {
+        return keysReclaimed.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getLastRunKeysReclaimed() {
+        return lastRunKeysReclaimed;
+    }
+
+    public long getLastRunMaxExpiryLagMs() {
+        return lastRunMaxExpiryLagMs;
+    }
+}
@@ -1,17 +1,28 @@
 package org.lessons.java.final_project_java_spring_react.service;
 
+import org.lessons.java.final_project_java_spring_react.dto.GameReview;
+import org.lessons.java.final_project_java_spring_react.dto.ReviewPage;
+import org.lessons.java.final_project_java_spring_react.dto.ReviewSort;
 import org.lessons.java.final_project_java_spring_react.model.Game;
 import org.lessons.java.final_project_java_spring_react.model.Review;
 import org.lessons.java.final_project_java_spring_react.repository.ReviewRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class ReviewService {
 
+    public static final int MAX_PAGE_SIZE = 50;
+
     @Autowired
     private ReviewRepository reviewRepository;
 
@@ -26,6 +37,62 @@ public class ReviewService {
         return reviewRepository.findByGameId(gameId);
     }
 
+    // Keyset-paginated reviews of a game, cursor is the opaque value returned as nextCursor (null for page 1)
+    @Transactional(readOnly = true)
+    public ReviewPage findGamePage(Long gameId, ReviewSort sort, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether a next page exists
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        String[] position = cursor != null ? decodeCursor(cursor, sort) : null;
+        long beforeId = position != null ? Long.parseLong(position[0]) : Long.MAX_VALUE;
+
+        List<Review> reviews = switch (sort) {
+            case NEWEST -> reviewRepository.findPageNewest(gameId,
+                    position != null ? LocalDateTime.parse(position[1]) : LocalDateTime.of(9999, 12, 31, 0, 0),
+                    beforeId, fetchLimit);
+            case TOP_RATED -> reviewRepository.findPageTopRated(gameId,
+                    position != null ? Integer.valueOf(position[1]) : Integer.MAX_VALUE, beforeId, fetchLimit);
+        };
+
+        String nextCursor = null;
+        if (reviews.size() > pageSize) {
+            reviews = reviews.subList(0, pageSize);
+            nextCursor = encodeCursor(sort, reviews.get(pageSize - 1));
+        }
+        // Counted for the first page only, the client keeps it while loading more
+        return new ReviewPage(reviews.stream().map(GameReview::new).toList(), nextCursor,
+                cursor == null ? reviewRepository.countByGameId(gameId) : null);
+    }
+
+    // Cursor format (before base64): SORT|lastId|lastSortValue
+    private String encodeCursor(ReviewSort sort, Review last) {
+        Object value = switch (sort) {
+            case NEWEST -> last.getCreatedAt();
+            case TOP_RATED -> last.getRating();
+        };
+        String raw = sort.name() + "|" + last.getId() + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor, ReviewSort sort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3 || !parts[0].equals(sort.name())) {
+                throw new IllegalArgumentException("Cursor does not match sort " + sort);
+            }
+            Long.parseLong(parts[1]);
+            if (sort == ReviewSort.NEWEST) {
+                LocalDateTime.parse(parts[2]);
+            } else {
+                Integer.parseInt(parts[2]);
+            }
+            return new String[] { parts[1], parts[2] };
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
     public List<Review> getReviewsByUserId(Integer userId) {
         return reviewRepository.findByUserId(userId);
     }
@@ -34,29 +101,35 @@ public class ReviewService {
         return reviewRepository.findById(id);
     }
 
+    @Transactional
     public Review saveReview(Review review) {
         Review savedReview = reviewRepository.save(review);
 
         // Recalculate game's average rating
-        Game game = review.getGame();
-        game.calculateAverageRating();
-        gameService.update(game);
+        updateAverageRating(savedReview.getGame().getId());
 
         return savedReview;
     }
 
+    @Transactional
     public void deleteReview(Long id) {
         Optional<Review> reviewOpt = reviewRepository.findById(id);
         if (reviewOpt.isPresent()) {
-            Game game = reviewOpt.get().getGame();
+            Long gameId = reviewOpt.get().getGame().getId();
             reviewRepository.deleteById(id);
 
             // Recalculate game's average rating after deletion
-            game.calculateAverageRating();
-            gameService.update(game);
+            updateAverageRating(gameId);
         }
     }
 
+    // AVG() in the database instead of loading every review of the game
+    private void updateAverageRating(Long gameId) {
+        Game game = gameService.getById(gameId);
+        game.applyAverageRating(reviewRepository.findAverageRatingByGameId(gameId));
+        gameService.update(game);
+    }
+
     public List<Review> searchReviews(String search) {
         return reviewRepository.searchByCommentOrGameOrUser(search);
     }
@@ -0,0 +1,270 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.StripeException;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs outbound Stripe calls so a slow or failing Stripe cannot tie up the
+ * request threads that also serve the catalog:
+ *
+ * - calls run on virtual threads; the request thread waits for the answer
+ * as long as the SDK itself may take: every attempt (1 +
+ * stripe.max-network-retries) hitting both stripe.connect-timeout-ms and
+ * stripe.read-timeout-ms, plus the SDK's delay between retries
+ * - at most stripe.client.max-concurrent-calls are in flight (bulkhead), extra
+ * callers are turned away after a short wait instead of queueing
+ * - after stripe.client.breaker.failure-threshold consecutive failures
+ * (timeouts, connection errors, 5xx, rate limits) calls are refused for
+ * stripe.client.breaker.open-ms, then a single trial call decides whether to
+ * close the circuit again
+ *
+ * Latency, rejected and timed-out calls are recorded per operation.
+ */
+@Component
+public class StripeCallGuard {
+
+    // Longest wait of the SDK between two attempts (HttpClient.maxNetworkRetriesDelay)
+    private static final long MAX_RETRY_DELAY_MS = 2000;
+
+    // Upper bounds of the latency buckets, in milliseconds (plus one overflow bucket)
+    private static final long[] LATENCY_BUCKETS_MS = { 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000 };
+
+    private final long callTimeoutMs;
+
+    private final long acquireTimeoutMs;
+
+    private final int failureThreshold;
+
+    private final long openMs;
+
+    private final int maxConcurrentCalls;
+
+    private final Semaphore bulkhead;
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("stripe-call-", 0).factory());
+
+    // Circuit breaker state
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile long openUntil = 0;
+
+    private final AtomicBoolean trialInFlight = new AtomicBoolean(false);
+
+    // Metrics, by operation name
+    private final Map<String, OperationStats> stats = new ConcurrentHashMap<>();
+
+    // SDK timeouts: same properties and defaults as StripeConfig, so the deadline never cuts off an SDK retry
+    public StripeCallGuard(@Value("${stripe.client.max-concurrent-calls:20}") int maxConcurrentCalls,
+            @Value("${stripe.client.acquire-timeout-ms:200}") long acquireTimeoutMs,
+            @Value("${stripe.client.breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${stripe.client.breaker.open-ms:30000}") long openMs,
+            @Value("${stripe.connect-timeout-ms:2000}") int connectTimeoutMs,
+            @Value("${stripe.read-timeout-ms:5000}") int readTimeoutMs,
+            @Value("${stripe.max-network-retries:1}") int maxNetworkRetries) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.callTimeoutMs = (long) (connectTimeoutMs + readTimeoutMs) * (1 + maxNetworkRetries)
+                + MAX_RETRY_DELAY_MS * maxNetworkRetries;
+    }
+
+    public <T> T call(String operation, Callable<T> stripeCall) throws StripeException {
+        OperationStats operationStats = stats.computeIfAbsent(operation, name -> new OperationStats());
+
+        // Open circuit: refuse until the cooldown is over, then let a single trial call through
+        boolean trial = false;
+        long until = openUntil;
+        if (until != 0) {
+            if (System.currentTimeMillis() < until || !trialInFlight.compareAndSet(false, true)) {
+                operationStats.rejected.incrementAndGet();
+                throw new StripeUnavailableException("Payment provider is unavailable, please try again shortly");
+            }
+            trial = true;
+        }
+
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            releaseTrial(trial);
+            Thread.currentThread().interrupt();
+            throw new StripeUnavailableException("Interrupted while waiting for the payment provider");
+        }
+        if (!acquired) {
+            releaseTrial(trial);
+            operationStats.rejected.incrementAndGet();
+            throw new StripeUnavailableException("Payment provider is busy, please try again");
+        }
+
+        long startTime = System.nanoTime();
+        Future<T> future;
+        try {
+            // The permit is held until Stripe actually answers, even after the caller gave up
+            future = executor.submit(() -> {
+                try {
+                    return stripeCall.call();
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            releaseTrial(trial);
+            throw e;
+        }
+
+        try {
+            T result = future.get(callTimeoutMs, TimeUnit.MILLISECONDS);
+            recordSuccess();
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            operationStats.timedOut.incrementAndGet();
+            System.err.println("❌ Stripe " + operation + " did not answer within " + callTimeoutMs + "ms");
+            recordFailure();
+            throw new StripeUnavailableException("Payment provider did not answer in time, please try again");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            releaseTrial(trial);
+            Thread.currentThread().interrupt();
+            throw new StripeUnavailableException("Interrupted while waiting for the payment provider");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (isOutage(cause)) {
+                recordFailure();
+            } else {
+                // Stripe answered (bad request, declined card...): it is healthy
+                recordSuccess();
+            }
+            if (cause instanceof StripeException stripeException) {
+                throw stripeException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            operationStats.record((System.nanoTime() - startTime) / 1_000_000);
+        }
+    }
+
+    private void releaseTrial(boolean trial) {
+        if (trial) {
+            trialInFlight.set(false);
+        }
+    }
+
+    private void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (openUntil != 0) {
+            openUntil = 0;
+            System.out.println("✓ Stripe circuit closed");
+        }
+        trialInFlight.set(false);
+    }
+
+    private void recordFailure() {
+        boolean failedTrial = trialInFlight.getAndSet(false);
+        if (failedTrial || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openUntil = System.currentTimeMillis() + openMs;
+            System.err.println("❌ Stripe circuit open for " + openMs + "ms after "
+                    + (failedTrial ? "a failed trial call" : consecutiveFailures.get() + " consecutive failures"));
+        }
+    }
+
+    private static boolean isOutage(Throwable cause) {
+        return cause instanceof ApiConnectionException || cause instanceof ApiException
+                || cause instanceof RateLimitException;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Metrics
+    public String getCircuitState() {
+        long until = openUntil;
+        if (until == 0) {
+            return "CLOSED";
+        }
+        return System.currentTimeMillis() < until ? "OPEN" : "HALF_OPEN";
+    }
+
+    public int getCallsInFlight() {
+        return maxConcurrentCalls - bulkhead.availablePermits();
+    }
+
+    // Calls turned away by the open circuit or the full bulkhead, per operation
+    public Map<String, Long> getRejectedCalls() {
+        Map<String, Long> rejected = new LinkedHashMap<>();
+        stats.forEach((operation, operationStats) -> rejected.put(operation, operationStats.rejected.get()));
+        return rejected;
+    }
+
+    public Map<String, Long> getTimedOutCalls() {
+        Map<String, Long> timedOut = new LinkedHashMap<>();
+        stats.forEach((operation, operationStats) -> timedOut.put(operation, operationStats.timedOut.get()));
+        return timedOut;
+    }
+
+    // Bucket label ("<=250ms", ..., ">10000ms") to call count, per operation
+    public Map<String, Map<String, Long>> getLatencyHistograms() {
+        Map<String, Map<String, Long>> histograms = new LinkedHashMap<>();
+        stats.forEach((operation, operationStats) -> histograms.put(operation, operationStats.histogram()));
+        return histograms;
+    }
+
+    private static class OperationStats {
+
+        private final AtomicLongArray latencyCounts = new AtomicLongArray(LATENCY_BUCKETS_MS.length + 1);
+
+        private final AtomicLong rejected = new AtomicLong();
+
+        private final AtomicLong timedOut = new AtomicLong();
+
+        void record(long millis) {
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKETS_MS.length && millis > LATENCY_BUCKETS_MS[bucket]) {
+                bucket++;
+            }
+            latencyCounts.incrementAndGet(bucket);
+        }
+
+        Map<String, Long> histogram() {
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < LATENCY_BUCKETS_MS.length; i++) {
+                histogram.put("<=" + LATENCY_BUCKETS_MS[i] + "ms", latencyCounts.get(i));
+            }
+            histogram.put(">" + LATENCY_BUCKETS_MS[LATENCY_BUCKETS_MS.length - 1] + "ms",
+                    latencyCounts.get(LATENCY_BUCKETS_MS.length));
+            return histogram;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.lessons.java.final_project_java_spring_react.model.Order;
+import org.lessons.java.final_project_java_spring_react.model.StripeEvent;
+import org.lessons.java.final_project_java_spring_react.repository.StripeEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Durable queue of Stripe webhook events, backed by the stripe_events table.
+ *
+ * The webhook only stores the event and hands its id to a small worker pool,
+ * so Stripe gets its 2xx straight away. A worker completes the order in its own
+ * transaction (which also queues the confirmation email). Events that fail are
+ * retried with exponential backoff; the poller also picks up whatever was still
+ * queued when an instance stopped.
+ */
+@Service
+public class StripeEventQueue {
+
+    public static final String CHECKOUT_SESSION_COMPLETED = "checkout.session.completed";
+
+    // Delayed payment methods complete the session unpaid and are confirmed by this event
+    public static final String CHECKOUT_SESSION_ASYNC_PAYMENT_SUCCEEDED = "checkout.session.async_payment_succeeded";
+
+    private static final int MAX_BACKOFF_SECONDS = 3600;
+
+    @Autowired
+    private StripeEventRepository stripeEventRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${stripe.webhook.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${stripe.webhook.poll-batch-size:100}")
+    private int pollBatchSize;
+
+    private final ExecutorService workers;
+
+    // Ids queued or running on this instance, so the poller does not submit them twice
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public StripeEventQueue(@Value("${stripe.webhook.workers:2}") int workerCount) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "stripe-event-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Stores the event and schedules it. Returns false if Stripe already
+     * delivered this event.
+     */
+    public boolean enqueue(String eventId, String type, String sessionId, String paymentStatus, String paymentMethod) {
+        int inserted = stripeEventRepository.enqueue(eventId, type, sessionId, paymentStatus, paymentMethod,
+                LocalDateTime.now());
+        if (inserted == 0) {
+            return false;
+        }
+        submit(eventId);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${stripe.webhook.poll-interval-ms:5000}")
+    public void poll() {
+        for (String eventId : stripeEventRepository.findDueIds(LocalDateTime.now(), Limit.of(pollBatchSize))) {
+            submit(eventId);
+        }
+    }
+
+    private void submit(String eventId) {
+        if (!inFlight.add(eventId)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    process(eventId);
+                } finally {
+                    inFlight.remove(eventId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down: the row stays PENDING for the next poll
+            inFlight.remove(eventId);
+        }
+    }
+
+    private void process(String eventId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(eventId));
+        } catch (Exception e) {
+            transactionTemplate.executeWithoutResult(status -> recordFailure(eventId, e));
+        }
+    }
+
+    private void apply(String eventId) {
+        StripeEvent event = stripeEventRepository.findByIdForUpdateSkipLocked(eventId).orElse(null);
+        if (event == null || !StripeEvent.PENDING.equals(event.getStatus())) {
+            return; // being applied elsewhere, or already done
+        }
+
+        if (isCheckoutEvent(event.getType()) && "paid".equals(event.getPaymentStatus())) {
+            // May not be committed yet if the webhook beat createPendingOrder: retried below
+            Order order = orderService.findByStripePaymentIntentId(event.getSessionId())
+                    .orElseThrow(() -> new RuntimeException("Order not found for session " + event.getSessionId()));
+            // Also queues the confirmation email, in this transaction
+            orderService.completeOrder(order.getId(), event.getPaymentMethod());
+        }
+
+        event.setStatus(StripeEvent.PROCESSED);
+        event.setProcessedAt(LocalDateTime.now());
+        event.setLastError(null);
+    }
+
+    public static boolean isCheckoutEvent(String type) {
+        return CHECKOUT_SESSION_COMPLETED.equals(type) || CHECKOUT_SESSION_ASYNC_PAYMENT_SUCCEEDED.equals(type);
+    }
+
+    private void recordFailure(String eventId, Exception e) {
+        StripeEvent event = stripeEventRepository.findById(eventId).orElse(null);
+        if (event == null) {
+            return;
+        }
+        String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        event.setAttempts(event.getAttempts() + 1);
+        event.setLastError(error.length() > 1024 ? error.substring(0, 1024) : error);
+
+        if (event.getAttempts() >= maxAttempts) {
+            event.setStatus(StripeEvent.FAILED);
+            System.err.println("❌ Stripe event " + eventId + " failed after " + event.getAttempts()
+                    + " attempts: " + error);
+        } else {
+            long backoffSeconds = Math.min(MAX_BACKOFF_SECONDS, 1L << event.getAttempts());
+            event.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoffSeconds));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Queued events are still PENDING in the database and are picked up after restart
+        workers.shutdownNow();
+    }
+}
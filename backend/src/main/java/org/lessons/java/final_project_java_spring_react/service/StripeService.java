@@ -1,40 +1,48 @@
 package org.lessons.java.final_project_java_spring_react.service;
 
+import com.stripe.exception.SignatureVerificationException;
 import com.stripe.exception.StripeException;
+import com.stripe.model.Event;
 import com.stripe.model.checkout.Session;
+import com.stripe.net.Webhook;
 import com.stripe.param.checkout.SessionCreateParams;
-import org.lessons.java.final_project_java_spring_react.model.Game;
+import org.lessons.java.final_project_java_spring_react.dto.CartQuoteLine;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 
 @Service
 public class StripeService {
 
+    @Autowired
+    private StripeCallGuard stripeCallGuard;
+
     @Value("${stripe.success.url}")
     private String successUrl;
 
     @Value("${stripe.cancel.url}")
     private String cancelUrl;
 
-    public Session createCheckoutSession(List<Game> games) throws StripeException {
-        List<SessionCreateParams.LineItem> lineItems = new ArrayList<>();
+    // Signing secret of the webhook endpoint (whsec_...), blank when no webhook is set up
+    @Value("${stripe.webhook.secret:}")
+    private String webhookSecret;
+
+    // Stripe accepts 30 minutes to 24 hours
+    @Value("${checkout.session-ttl-minutes:30}")
+    private int sessionTtlMinutes;
 
-        for (Game game : games) {
-            // Calculate final price with discount
-            BigDecimal price = BigDecimal.valueOf(game.getPrice());
-            if (game.getDiscountPercentage() != null && game.getDiscountPercentage() > 0) {
-                BigDecimal discount = BigDecimal.valueOf(game.getDiscountPercentage())
-                        .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-                price = price.subtract(price.multiply(discount));
-            }
+    // Lines come from CartQuoteService, so Stripe charges exactly the quoted prices
+    public Session createCheckoutSession(List<CartQuoteLine> lines) throws StripeException {
+        List<SessionCreateParams.LineItem> lineItems = new ArrayList<>();
 
-            // Stripe expects amount in cents
-            long amountInCents = price.multiply(BigDecimal.valueOf(100)).longValue();
+        for (CartQuoteLine line : lines) {
+            // Stripe expects amount in cents, same rounding as Order.calculateTotalPrice
+            long amountInCents = line.getUnitPriceCents();
 
             SessionCreateParams.LineItem lineItem = SessionCreateParams.LineItem.builder()
                     .setPriceData(
@@ -42,11 +50,9 @@ public class StripeService {
                                     .setCurrency("eur")
                                     .setProductData(
                                             SessionCreateParams.LineItem.PriceData.ProductData.builder()
-                                                    .setName(game.getTitle())
-                                                    .setDescription(game.getDescription() != null && game.getDescription().length() > 100
-                                                            ? game.getDescription().substring(0, 100) + "..."
-                                                            : game.getDescription())
-                                                    .addImage(game.getImageUrl())
+                                                    .setName(line.getTitle())
+                                                    .setDescription(line.getDescription())
+                                                    .addImage(line.getImageUrl())
                                                     .build())
                                     .setUnitAmount(amountInCents)
                                     .build())
@@ -60,13 +66,33 @@ public class StripeService {
                 .setMode(SessionCreateParams.Mode.PAYMENT)
                 .setSuccessUrl(successUrl + "?session_id={CHECKOUT_SESSION_ID}")
                 .setCancelUrl(cancelUrl)
+                // Expire before the order's key reservation does (see OrderService)
+                .setExpiresAt(Instant.now().plus(sessionTtlMinutes, ChronoUnit.MINUTES).getEpochSecond())
                 .addAllLineItem(lineItems)
                 .build();
 
-        return Session.create(params);
+        return stripeCallGuard.call("createCheckoutSession", () -> Session.create(params));
     }
 
     public Session retrieveSession(String sessionId) throws StripeException {
-        return Session.retrieve(sessionId);
+        return stripeCallGuard.call("retrieveSession", () -> Session.retrieve(sessionId));
+    }
+
+    // Makes an abandoned session unpayable. Sessions that are no longer open (paid,
+    // awaiting an async payment or already expired) are returned as they are.
+    public Session expireSession(String sessionId) throws StripeException {
+        Session session = retrieveSession(sessionId);
+        if (!"open".equals(session.getStatus())) {
+            return session;
+        }
+        return stripeCallGuard.call("expireSession", () -> session.expire());
+    }
+
+    public boolean isWebhookEnabled() {
+        return !webhookSecret.isBlank();
+    }
+
+    public Event constructWebhookEvent(String payload, String signature) throws SignatureVerificationException {
+        return Webhook.constructEvent(payload, signature, webhookSecret);
     }
 }
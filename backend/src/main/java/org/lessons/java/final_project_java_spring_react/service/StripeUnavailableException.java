@@ -0,0 +1,13 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+/**
+ * Thrown by StripeCallGuard when a Stripe call is not attempted (bulkhead full,
+ * circuit open) or does not answer before its deadline. Callers should answer
+ * 503 and let the client retry later.
+ */
+public class StripeUnavailableException extends RuntimeException {
+
+    public StripeUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,26 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import org.lessons.java.final_project_java_spring_react.model.OutboxEmail;
+import org.lessons.java.final_project_java_spring_react.model.User;
+import org.lessons.java.final_project_java_spring_react.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class UserService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EmailOutbox emailOutbox;
+
+    // Saves a new account and queues its welcome email in the same transaction
+    @Transactional
+    public User register(User user) {
+        User savedUser = userRepository.save(user);
+        emailOutbox.enqueue(OutboxEmail.WELCOME, savedUser.getId().longValue());
+        return savedUser;
+    }
+}
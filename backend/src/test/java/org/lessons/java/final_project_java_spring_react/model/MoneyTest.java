@@ -0,0 +1,76 @@
+package org.lessons.java.final_project_java_spring_react.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class MoneyTest {
+
+    // Reference implementation: the same computation on BigDecimal euros
+    private static long expectedCents(double price, Integer discountPercentage) {
+        int discount = discountPercentage != null ? Math.max(0, Math.min(100, discountPercentage)) : 0;
+        return BigDecimal.valueOf(price)
+                .multiply(BigDecimal.valueOf(100 - discount))
+                .divide(BigDecimal.valueOf(100))
+                .setScale(2, RoundingMode.HALF_UP)
+                .movePointRight(2)
+                .longValueExact();
+    }
+
+    private static Game game(double price, Integer discountPercentage) {
+        Game game = new Game();
+        game.setPrice(price);
+        game.setDiscountPercentage(discountPercentage);
+        return game;
+    }
+
+    @Test
+    void unitPriceMatchesBigDecimalHalfUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // Catalog prices have at most 2 decimals, up to 999.99
+            double price = random.nextInt(100_000) / 100.0;
+            Integer discount = random.nextInt(10) == 0 ? null : random.nextInt(101);
+
+            assertEquals(expectedCents(price, discount), Money.unitPriceCents(game(price, discount)),
+                    "price " + price + ", discount " + discount);
+        }
+    }
+
+    @Test
+    void halfCentsRoundUp() {
+        // 0.05 * 0.5 = 0.025 -> 0.03, 0.15 * 0.5 = 0.075 -> 0.08
+        assertEquals(3, Money.discountedCents(5, 50));
+        assertEquals(8, Money.discountedCents(15, 50));
+        // 19.99 * 0.85 = 16.9915 -> 16.99
+        assertEquals(1699, Money.discountedCents(1999, 15));
+    }
+
+    @Test
+    void discountEdgeCases() {
+        assertEquals(1999, Money.discountedCents(1999, null));
+        assertEquals(1999, Money.discountedCents(1999, 0));
+        assertEquals(0, Money.discountedCents(1999, 100));
+        // Out-of-range discounts are clamped
+        assertEquals(1999, Money.discountedCents(1999, -10));
+        assertEquals(0, Money.discountedCents(1999, 150));
+    }
+
+    @Test
+    void toCentsHandlesBinaryFractions() {
+        assertEquals(0, Money.toCents(null));
+        assertEquals(1999, Money.toCents(19.99));
+        assertEquals(29, Money.toCents(0.29));
+        assertEquals(100_000_00, Money.toCents(100_000.0));
+    }
+
+    @Test
+    void toAmountHasTwoDecimals() {
+        assertEquals(new BigDecimal("16.99"), Money.toAmount(1699));
+        assertEquals(new BigDecimal("0.00"), Money.toAmount(0));
+    }
+}
@@ -0,0 +1,100 @@
+package org.lessons.java.final_project_java_spring_react.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lessons.java.final_project_java_spring_react.model.Game;
+
+class GameSearchIndexTest {
+
+    private GameSearchIndex index;
+
+    // No categories or platforms, so indexing never reaches the repositories
+    private static Game game(long id, String title, String publisher) {
+        Game game = new Game();
+        game.setId(id);
+        game.setTitle(title);
+        game.setPublisher(publisher);
+        return game;
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new GameSearchIndex();
+        index.index(game(1, "The Legend of Zelda", "Nintendo"));
+        index.index(game(2, "Zelda II", "Nintendo"));
+        index.index(game(3, "Pokémon Red", "Game Freak"));
+        index.index(game(4, "Azelea Tales", "Indie"));
+        index.index(game(5, "Nintendo Land", "Nintendo"));
+    }
+
+    @Test
+    void prefixMatchesWordStartsOnly() {
+        assertEquals(List.of(1L, 2L), index.search("zel"));
+        // "zel" inside "azelea" is not a word start
+        assertTrue(index.search("zelea").isEmpty());
+        assertEquals(List.of(4L), index.search("azel"));
+    }
+
+    @Test
+    void prefixRangeStopsAtTheLastMatchingTerm() {
+        assertEquals(List.of(1L, 2L), index.search("zelda"));
+        assertTrue(index.search("zeldaz").isEmpty());
+        assertTrue(index.search("zzz").isEmpty());
+    }
+
+    @Test
+    void everyTokenMustMatch() {
+        assertEquals(List.of(1L), index.search("legend zelda"));
+        assertTrue(index.search("zelda pokemon").isEmpty());
+    }
+
+    @Test
+    void exactTermsAndTitlesRankFirst() {
+        // Title hit (weight 3) beats the publisher hit (1.5) of games 1 and 2
+        assertEquals(List.of(5L, 1L, 2L), index.search("nintendo"));
+        // Whole word "ii" vs nothing else: a prefix hit counts half
+        index.index(game(6, "Iiyama Racing", "Indie"));
+        assertEquals(List.of(2L, 6L), index.search("ii"));
+    }
+
+    @Test
+    void equalScoresAreOrderedById() {
+        index.index(game(9, "Zelda II", "Nintendo"));
+        assertEquals(List.of(2L, 9L), index.search("zelda ii"));
+    }
+
+    @Test
+    void accentsAndCaseAreIgnored() {
+        assertEquals(List.of(3L), index.search("POKEMON"));
+        assertEquals(List.of(3L), index.search("pokémon red"));
+    }
+
+    @Test
+    void emptyQueriesMatchNothing() {
+        assertTrue(index.search("").isEmpty());
+        assertTrue(index.search("   ").isEmpty());
+        assertTrue(index.search("?!").isEmpty());
+        assertTrue(index.search(null).isEmpty());
+    }
+
+    @Test
+    void reindexAndRemoveReplaceTheOldTerms() {
+        index.index(game(2, "Metroid", "Nintendo"));
+        assertEquals(List.of(1L), index.search("zelda"));
+        assertEquals(List.of(2L), index.search("metroid"));
+
+        index.remove(2L);
+        assertTrue(index.search("metroid").isEmpty());
+        assertEquals(List.of(5L, 1L), index.search("nintendo"));
+    }
+
+    @Test
+    void limitKeepsTheBestResults() {
+        assertEquals(List.of(5L), index.search("nintendo", 1));
+    }
+}
@@ -0,0 +1,158 @@
+package org.lessons.java.final_project_java_spring_react.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.lessons.java.final_project_java_spring_react.dto.GameSuggestion;
+import org.lessons.java.final_project_java_spring_react.dto.GameTitleView;
+import org.lessons.java.final_project_java_spring_react.dto.StockCount;
+import org.lessons.java.final_project_java_spring_react.repository.ArchivedGameKeyRepository;
+import org.lessons.java.final_project_java_spring_react.repository.GameKeyRepository;
+import org.lessons.java.final_project_java_spring_react.repository.GameRepository;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class TitleSuggesterTest {
+
+    @Mock
+    private GameRepository gameRepository;
+
+    @Mock
+    private GameKeyRepository gameKeyRepository;
+
+    @Mock
+    private ArchivedGameKeyRepository archivedGameKeyRepository;
+
+    @InjectMocks
+    private TitleSuggester suggester;
+
+    private static GameTitleView title(long id, String title) {
+        return new GameTitleView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getTitle() {
+                return title;
+            }
+        };
+    }
+
+    private static StockCount sold(long gameId, long count) {
+        return new StockCount(gameId, 1L, count);
+    }
+
+    private void build(List<GameTitleView> titles, List<StockCount> sales, List<StockCount> archivedSales) {
+        when(gameRepository.findAllProjectedBy()).thenReturn(titles);
+        when(gameKeyRepository.countSoldGroupedByGameAndPlatform()).thenReturn(sales);
+        when(archivedGameKeyRepository.countGroupedByGameAndPlatform()).thenReturn(archivedSales);
+        suggester.rebuild();
+    }
+
+    private List<Long> ids(String query, int limit) {
+        List<Long> ids = new ArrayList<>();
+        for (GameSuggestion suggestion : suggester.suggest(query, limit)) {
+            ids.add(suggestion.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    void prefixMatchesEveryWordStartButNotInsideWords() {
+        build(List.of(title(1, "The Legend of Zelda"), title(2, "Azelea Tales")), List.of(), List.of());
+
+        assertEquals(List.of(1L), ids("zel", 10));
+        assertEquals(List.of(1L), ids("legend of", 10));
+        assertEquals(List.of(2L), ids("azel", 10));
+        assertTrue(ids("egend", 10).isEmpty());
+    }
+
+    @Test
+    void prefixBoundsExcludeNeighbouringEntries() {
+        build(List.of(title(1, "Zelda"), title(2, "Zeldas"), title(3, "Zeldb"), title(4, "Yoshi")),
+                List.of(), List.of());
+
+        assertEquals(List.of(1L, 2L), ids("zelda", 10));
+        assertEquals(List.of(2L), ids("zeldas", 10));
+        assertTrue(ids("zeldaz", 10).isEmpty());
+        // Before the first and after the last entry
+        assertTrue(ids("aaa", 10).isEmpty());
+        assertTrue(ids("zz", 10).isEmpty());
+    }
+
+    @Test
+    void titleMatchedAtSeveralWordStartsIsSuggestedOnce() {
+        build(List.of(title(1, "Super Mario Super Party"), title(2, "Super Meat Boy")),
+                List.of(sold(1, 10)), List.of());
+
+        assertEquals(List.of(1L, 2L), ids("super", 10));
+        assertEquals(List.of(1L, 2L), ids("s", 2));
+    }
+
+    @Test
+    void bestSellersComeFirstIncludingArchivedSales() {
+        build(List.of(title(1, "Zelda A"), title(2, "Zelda B"), title(3, "Zelda C")),
+                List.of(sold(2, 5), sold(3, 2)), List.of(sold(3, 4)));
+
+        assertEquals(List.of(3L, 2L, 1L), ids("zelda", 10));
+        assertEquals(List.of(3L), ids("zelda", 1));
+    }
+
+    @Test
+    void equalSalesAreOrderedAlphabetically() {
+        build(List.of(title(1, "Zelda Breath"), title(2, "Zelda Awakening"), title(3, "Zelda Link")),
+                List.of(sold(3, 1)), List.of());
+
+        assertEquals(List.of(3L, 2L, 1L), ids("zelda", 10));
+    }
+
+    @Test
+    void equalSalesStayAlphabeticalAcrossSplitRanges() {
+        // The best sellers split the range, leaving unsold titles in several sub-ranges
+        build(List.of(title(1, "Zelda A"), title(2, "Zelda B"), title(3, "Zelda C"), title(4, "Zelda D"),
+                title(5, "Zelda E"), title(6, "Zelda F"), title(7, "Zelda G"), title(8, "Zelda H")),
+                List.of(sold(2, 9), sold(4, 7), sold(6, 5)), List.of());
+
+        assertEquals(List.of(2L, 4L, 6L, 1L, 3L, 5L, 7L, 8L), ids("zelda", 10));
+    }
+
+    @Test
+    void emptyInputSuggestsNothing() {
+        build(List.of(title(1, "Zelda")), List.of(), List.of());
+
+        assertTrue(ids("", 10).isEmpty());
+        assertTrue(ids("  !! ", 10).isEmpty());
+        assertTrue(ids("zel", 0).isEmpty());
+    }
+
+    @Test
+    void emptyCatalogSuggestsNothing() {
+        build(List.of(), List.of(), List.of());
+
+        assertTrue(ids("zel", 10).isEmpty());
+    }
+
+    @Test
+    void weightsAreRefreshedOnlyAfterNewSales() {
+        build(List.of(title(1, "Zelda")), List.of(), List.of());
+
+        suggester.refreshWeights();
+        verify(gameRepository, times(1)).findAllProjectedBy();
+
+        when(gameKeyRepository.countByIsSoldTrue()).thenReturn(1L);
+        suggester.refreshWeights();
+        verify(gameRepository, times(2)).findAllProjectedBy();
+    }
+}
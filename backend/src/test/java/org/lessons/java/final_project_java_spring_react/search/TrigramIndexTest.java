@@ -0,0 +1,114 @@
+package org.lessons.java.final_project_java_spring_react.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.lessons.java.final_project_java_spring_react.dto.GameTitleView;
+import org.lessons.java.final_project_java_spring_react.model.Game;
+import org.lessons.java.final_project_java_spring_react.repository.GameRepository;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class TrigramIndexTest {
+
+    @Mock
+    private GameRepository gameRepository;
+
+    @InjectMocks
+    private TrigramIndex index;
+
+    private static GameTitleView title(long id, String title) {
+        return new GameTitleView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getTitle() {
+                return title;
+            }
+        };
+    }
+
+    private void build(GameTitleView... titles) {
+        when(gameRepository.findAllProjectedBy()).thenReturn(List.of(titles));
+        index.rebuild();
+    }
+
+    private static int distance(String a, String b, int bound) {
+        return TrigramIndex.boundedLevenshtein(a, b, bound, new TrigramIndex.Scratch());
+    }
+
+    @Test
+    void editDistanceCountsTranspositionsAsOneEdit() {
+        assertEquals(0, distance("zelda", "zelda", 2));
+        assertEquals(1, distance("zelad", "zelda", 2));
+        assertEquals(1, distance("ezlda", "zelda", 2));
+        assertEquals(1, distance("zeld", "zelda", 2));
+        assertEquals(1, distance("zelba", "zelda", 2));
+        assertEquals(2, distance("ezlad", "zelda", 2));
+    }
+
+    @Test
+    void editDistanceStopsAtTheBound() {
+        assertEquals(2, distance("mario", "zelda", 1));
+        // Length difference alone exceeds the bound
+        assertEquals(2, distance("zel", "zeldaxx", 1));
+        assertEquals(0, distance("", "", 0));
+        assertEquals(1, distance("", "ab", 0));
+    }
+
+    @Test
+    void typosFindTheTitle() {
+        build(title(1, "Cyberpunk 2077"), title(2, "The Witcher 3"), title(3, "The Legend of Zelda"));
+
+        assertEquals(List.of(1L), index.search("cyberpunck", 10));
+        assertEquals(List.of(2L), index.search("witchr", 10));
+        assertEquals(List.of(3L), index.search("zelad", 10));
+    }
+
+    @Test
+    void everyQueryWordMustBeCloseToATitleWord() {
+        build(title(1, "Dark Souls"), title(2, "Dark Forest"));
+
+        assertEquals(List.of(1L), index.search("dark sols", 10));
+        assertTrue(index.search("dark xyzzy", 10).isEmpty());
+    }
+
+    @Test
+    void closerTitlesComeFirst() {
+        build(title(1, "Witches Brew"), title(2, "The Witcher 3"));
+
+        assertEquals(List.of(2L, 1L), index.search("witcher", 10));
+        assertEquals(List.of(2L), index.search("witcher", 1));
+    }
+
+    @Test
+    void emptyInputFindsNothing() {
+        build(title(1, "Zelda"));
+
+        assertTrue(index.search("", 10).isEmpty());
+        assertTrue(index.search(" - ", 10).isEmpty());
+    }
+
+    @Test
+    void catalogChangesApplyOnTheNextRebuild() {
+        build(title(1, "Zelda"));
+        when(gameRepository.findAllProjectedBy()).thenReturn(List.of(title(1, "Zelda"), title(2, "Metroid")));
+
+        index.rebuildIfDirty();
+        assertTrue(index.search("metroid", 10).isEmpty());
+
+        index.index(new Game());
+        index.rebuildIfDirty();
+        assertEquals(List.of(2L), index.search("metroid", 10));
+    }
+}
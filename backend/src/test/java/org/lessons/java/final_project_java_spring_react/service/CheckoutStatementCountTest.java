@@ -0,0 +1,160 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.lessons.java.final_project_java_spring_react.dto.CartLine;
+import org.lessons.java.final_project_java_spring_react.dto.CartQuote;
+import org.lessons.java.final_project_java_spring_react.model.Game;
+import org.lessons.java.final_project_java_spring_react.model.GameKey;
+import org.lessons.java.final_project_java_spring_react.model.Platform;
+import org.lessons.java.final_project_java_spring_react.model.User;
+import org.lessons.java.final_project_java_spring_react.repository.GameRepository;
+import org.lessons.java.final_project_java_spring_react.repository.PlatformRepository;
+import org.lessons.java.final_project_java_spring_react.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Counts the SQL statements of a checkout (validation and stock lookup in
+ * CartQuoteService, then the key claim, stock update and order insert in
+ * OrderService) on the JDBC connections of the test thread, and checks the
+ * count does not grow with the cart. Runs against the MySQL database
+ * configured in application.properties, with the key pool off so every key
+ * comes from the database claim:
+ *
+ * mvn test -Dtest=CheckoutStatementCountTest -Dmysql-tests=true
+ */
+@SpringBootTest(properties = "keypool.enabled=false")
+@EnabledIfSystemProperty(named = "mysql-tests", matches = "true")
+class CheckoutStatementCountTest {
+
+    // Statements prepared by the current thread, null when not counting
+    private static final ThreadLocal<int[]> STATEMENTS = new ThreadLocal<>();
+
+    @TestConfiguration
+    static class StatementCounting {
+
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? proxy(DataSource.class, dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    // Hands out counting connections, and counts every statement they prepare
+    private static <T> T proxy(Class<T> type, T target) {
+        return type.cast(Proxy.newProxyInstance(CheckoutStatementCountTest.class.getClassLoader(),
+                new Class<?>[] { type }, (proxy, method, args) -> {
+                    if (type == Connection.class && isStatement(method) && STATEMENTS.get() != null) {
+                        STATEMENTS.get()[0]++;
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    return result instanceof Connection connection && method.getName().equals("getConnection")
+                            ? proxy(Connection.class, connection)
+                            : result;
+                }));
+    }
+
+    private static boolean isStatement(Method method) {
+        return method.getName().equals("prepareStatement") || method.getName().equals("prepareCall")
+                || method.getName().equals("createStatement");
+    }
+
+    @Autowired
+    private CartQuoteService cartQuoteService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private GameKeyService gameKeyService;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private PlatformRepository platformRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void checkoutStatementCountDoesNotGrowWithTheCart() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+
+        Platform platform = new Platform();
+        platform.setName("Platform " + run);
+        platform = platformRepository.save(platform);
+
+        User user = new User();
+        user.setUsername("buyer-" + run);
+        user.setEmail("buyer-" + run + "@example.com");
+        user.setPassword("{noop}password");
+        user = userRepository.save(user);
+
+        // 12 games with 2 keys each
+        List<Long> gameIds = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Game game = new Game();
+            game.setTitle("Cart " + run + " " + i);
+            game.setPrice(10.0 + i);
+            game.setPublisher("Statement count test");
+            game.setPlatforms(List.of(platform));
+            game = gameRepository.save(game);
+            gameKeyService.createGameKey(new GameKey(run + "-" + i + "-a", game, platform));
+            gameKeyService.createGameKey(new GameKey(run + "-" + i + "-b", game, platform));
+            gameIds.add(game.getId());
+        }
+
+        Long platformId = platform.getId();
+        int single = checkoutStatements(user, run + "-1", List.of(new CartLine(gameIds.get(0), platformId)));
+
+        // Three games, one of them twice
+        List<CartLine> small = List.of(new CartLine(gameIds.get(1), platformId),
+                new CartLine(gameIds.get(2), platformId), new CartLine(gameIds.get(2), platformId));
+        assertEquals(single, checkoutStatements(user, run + "-2", small));
+
+        List<CartLine> large = new ArrayList<>();
+        for (Long gameId : gameIds.subList(3, 12)) {
+            large.add(new CartLine(gameId, platformId));
+        }
+        assertEquals(single, checkoutStatements(user, run + "-3", large));
+    }
+
+    private int checkoutStatements(User user, String sessionId, List<CartLine> lines) {
+        STATEMENTS.set(new int[1]);
+        try {
+            CartQuote quote = cartQuoteService.quoteForCheckout(lines);
+            assertTrue(quote.isPurchasable());
+            assertEquals(lines.size(), orderService.createPendingOrder(user, sessionId, quote).getGameKeys().size());
+            return STATEMENTS.get()[0];
+        } finally {
+            STATEMENTS.remove();
+        }
+    }
+}
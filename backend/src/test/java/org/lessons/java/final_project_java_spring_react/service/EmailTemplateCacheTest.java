@@ -0,0 +1,137 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+class EmailTemplateCacheTest {
+
+    private static final Locale LOCALE = Locale.ITALY;
+
+    private TemplateEngine templateEngine;
+
+    private EmailTemplateCache templateCache;
+
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        templateCache = new EmailTemplateCache();
+        ReflectionTestUtils.setField(templateCache, "templateEngine", templateEngine);
+        ReflectionTestUtils.setField(templateCache, "cacheEnabled", true);
+
+        emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "templateCache", templateCache);
+    }
+
+    // What EmailService did before the cache: a full Thymeleaf pass per email
+    private String process(String template, Map<String, String> values) {
+        Context context = new Context(LOCALE);
+        values.forEach(context::setVariable);
+        return templateEngine.process(template, context);
+    }
+
+    private static Map<String, String> orderValues(int orderId) {
+        Map<String, String> values = new HashMap<>();
+        values.put("username", "Tom & \"Jerry\" <3");
+        values.put("orderId", String.valueOf(orderId));
+        values.put("totalPrice", "59,98");
+        values.put("orderDate", "18 ottobre 2026 10:15");
+        values.put("gameKeys", "<div class=\"game-key\">ZELDA-12345 & co</div>");
+        return values;
+    }
+
+    @Test
+    void stencilsRenderWhatThymeleafRenders() {
+        Map<String, String> order = orderValues(42);
+        assertEquals(process("email/order-confirmation", order),
+                templateCache.render("email/order-confirmation", LOCALE, order));
+
+        // th:text, th:utext and a link parameter in the same template
+        Map<String, String> newsletter = Map.of("subject", "Saldi <estivi> & co", "content", "<p>Fino al -80%</p>",
+                "email", "mario+news@example.com");
+        assertEquals(process("email/newsletter", newsletter), templateCache.render("email/newsletter", LOCALE, newsletter));
+        assertEquals(process("email/newsletter-welcome", Map.of("email", "a&b@example.com")),
+                templateCache.render("email/newsletter-welcome", LOCALE, Map.of("email", "a&b@example.com")));
+    }
+
+    @Test
+    void newsletterFragmentsAreWrappedInTheLayout() {
+        String html = emailService.newsletterStencil("Offerte", "<p>Fino al -80%</p>")
+                .fill(Map.of("email", "mario@example.com"));
+
+        assertEquals(process("email/newsletter", Map.of("subject", "Offerte", "content", "<p>Fino al -80%</p>",
+                "email", "mario@example.com")), html);
+    }
+
+    @Test
+    void fullDocumentNewslettersAreSentAsWrittenWithTheFooter() {
+        String document = "<!DOCTYPE html><HTML><head><title>Summer</title></head>"
+                + "<body><h1>Summer sale</h1></BODY></html>";
+        String html = emailService.newsletterStencil("Summer", document).fill(Map.of("email", "mario+news@example.com"));
+
+        // The admin's document untouched, with only the unsubscribe footer before </BODY>
+        String footer = process("email/newsletter-footer", Map.of("email", "mario+news@example.com"));
+        assertEquals("<!DOCTYPE html><HTML><head><title>Summer</title></head><body><h1>Summer sale</h1>"
+                + footer + "</BODY></html>", html);
+        assertTrue(footer.contains("/unsubscribe?email="));
+        // Not nested in the newsletter layout
+        assertFalse(html.contains("class=\"container\""));
+    }
+
+    @Test
+    void documentWithoutClosingTagsGetsTheFooterAtTheEnd() {
+        String html = emailService.newsletterStencil("Summer", "<html><body><h1>Summer sale</h1>")
+                .fill(Map.of("email", "mario@example.com"));
+
+        assertEquals("<html><body><h1>Summer sale</h1>"
+                + process("email/newsletter-footer", Map.of("email", "mario@example.com")), html);
+    }
+
+    // Before/after: emails per second with a Thymeleaf pass per email vs. filling a cached stencil
+    @Test
+    void benchmarkRenderingPerEmail() {
+        int emails = 5000;
+        for (int i = 0; i < 500; i++) {
+            process("email/order-confirmation", orderValues(i));
+            templateCache.render("email/order-confirmation", LOCALE, orderValues(i));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < emails; i++) {
+            process("email/order-confirmation", orderValues(i));
+        }
+        long processNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < emails; i++) {
+            templateCache.render("email/order-confirmation", LOCALE, orderValues(i));
+        }
+        long stencilNanos = System.nanoTime() - start;
+
+        System.out.printf("order-confirmation: %.0f emails/s per Thymeleaf pass, %.0f emails/s from the stencil%n",
+                emails * 1e9 / processNanos, emails * 1e9 / stencilNanos);
+        assertTrue(stencilNanos < processNanos);
+    }
+}
@@ -0,0 +1,112 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Minimal stand-in for the Stripe API with latency and fault injection.
+ *
+ * Answers checkout session create, retrieve and expire with an open session,
+ * after latencyMs, or with a 500 api_error while failing is set. Point the SDK
+ * at it with Stripe.overrideApiBase(baseUrl()), or with stripe.api-base when
+ * running it standalone for load tests:
+ *
+ * java FakeStripeServer [port] [latencyMs]
+ */
+public class FakeStripeServer implements AutoCloseable {
+
+    private static final String SESSIONS_PATH = "/v1/checkout/sessions";
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final AtomicInteger nextSession = new AtomicInteger();
+
+    private volatile long latencyMs = 0;
+
+    private volatile boolean failing = false;
+
+    public FakeStripeServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext(SESSIONS_PATH, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public static void main(String[] args) throws IOException {
+        FakeStripeServer server = new FakeStripeServer(args.length > 0 ? Integer.parseInt(args[0]) : 12111);
+        server.setLatencyMs(args.length > 1 ? Long.parseLong(args[1]) : 0);
+        System.out.println("✓ Fake Stripe listening on " + server.baseUrl());
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public void setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    public void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    // Requests received, including the ones the caller gave up on
+    public int getRequests() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            exchange.getRequestBody().readAllBytes();
+            if (latencyMs > 0) {
+                Thread.sleep(latencyMs);
+            }
+            if (failing) {
+                respond(exchange, 500, "{\"error\": {\"type\": \"api_error\", \"message\": \"Injected failure\"}}");
+                return;
+            }
+
+            // POST /v1/checkout/sessions creates, /v1/checkout/sessions/{id}[/expire] reads or expires
+            String path = exchange.getRequestURI().getPath();
+            String id = path.length() > SESSIONS_PATH.length()
+                    ? path.substring(SESSIONS_PATH.length() + 1).replace("/expire", "")
+                    : "cs_test_fake_" + nextSession.incrementAndGet();
+            String status = path.endsWith("/expire") ? "expired" : "open";
+            respond(exchange, 200, "{\"id\": \"" + id + "\", \"object\": \"checkout.session\", \"status\": \""
+                    + status + "\", \"payment_status\": \"unpaid\", \"url\": \"https://checkout.stripe.com/c/pay/"
+                    + id + "\"}");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.lessons.java.final_project_java_spring_react.model.Game;
+import org.lessons.java.final_project_java_spring_react.model.GameKey;
+import org.lessons.java.final_project_java_spring_react.model.GameStockId;
+import org.lessons.java.final_project_java_spring_react.model.Order;
+import org.lessons.java.final_project_java_spring_react.model.Platform;
+import org.lessons.java.final_project_java_spring_react.repository.GameKeyRepository;
+import org.lessons.java.final_project_java_spring_react.repository.GameRepository;
+import org.lessons.java.final_project_java_spring_react.repository.PlatformRepository;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+@ExtendWith(MockitoExtension.class)
+class GameKeyServiceTest {
+
+    @Mock
+    private GameKeyRepository gameKeyRepository;
+
+    @Mock
+    private GameRepository gameRepository;
+
+    @Mock
+    private PlatformRepository platformRepository;
+
+    @Mock
+    private GameStockService gameStockService;
+
+    @Mock
+    private GameKeyPool gameKeyPool;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Query query;
+
+    @InjectMocks
+    private GameKeyService gameKeyService;
+
+    private static GameKey key(long id, long gameId, long platformId) {
+        Game game = new Game();
+        game.setId(gameId);
+        Platform platform = new Platform();
+        platform.setId(platformId);
+        GameKey gameKey = new GameKey("KEY-" + id, game, platform);
+        gameKey.setId(id);
+        return gameKey;
+    }
+
+    @Test
+    void claimSqlHasOneLockingSelectPerPair() {
+        String sql = GameKeyService.claimSql(3);
+
+        assertEquals(3, sql.split("FOR UPDATE SKIP LOCKED", -1).length - 1);
+        assertEquals(2, sql.split("UNION ALL", -1).length - 1);
+        // Positional parameters: game, platform and limit of each pair
+        assertTrue(sql.contains("?9") && !sql.contains("?10"));
+    }
+
+    @Test
+    void fallbackPairsShareOneClaimQuery() {
+        Map<GameStockId, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(new GameStockId(1L, 10L), 2);
+        quantities.put(new GameStockId(2L, 10L), 1);
+        quantities.put(new GameStockId(3L, 20L), 1);
+
+        when(entityManager.createNativeQuery(anyString(), eq(GameKey.class))).thenReturn(query);
+        // Pair 3 is out of stock
+        when(query.getResultList()).thenReturn(List.of(key(100, 1, 10), key(101, 1, 10), key(200, 2, 10)));
+
+        Order order = new Order();
+        Map<GameStockId, List<GameKey>> claimed = gameKeyService.claimKeys(quantities, order);
+
+        verify(entityManager, times(1)).createNativeQuery(anyString(), eq(GameKey.class));
+        verify(query, times(9)).setParameter(anyInt(), any());
+        verify(gameKeyRepository, never()).findAvailableForUpdateSkipLocked(anyLong(), anyLong(), any());
+
+        assertEquals(2, claimed.get(new GameStockId(1L, 10L)).size());
+        assertEquals(1, claimed.get(new GameStockId(2L, 10L)).size());
+        assertEquals(0, claimed.get(new GameStockId(3L, 20L)).size());
+        assertSame(order, claimed.get(new GameStockId(1L, 10L)).get(0).getOrder());
+    }
+
+    @Test
+    void cartServedByThePoolRunsNoClaimStatement() {
+        GameKey pooled = key(100, 1, 10);
+        pooled.setPooled(true);
+        when(gameKeyPool.take(1L, 10L, 1)).thenReturn(List.of(100L));
+        when(gameKeyRepository.findAllForUpdateByIdIn(any())).thenReturn(List.of(pooled));
+        when(gameKeyPool.isHeldHere(pooled)).thenReturn(true);
+
+        Order order = new Order();
+        Map<GameStockId, List<GameKey>> claimed = gameKeyService.claimKeys(
+                Map.of(new GameStockId(1L, 10L), 1), order);
+
+        verify(entityManager, never()).createNativeQuery(anyString(), eq(GameKey.class));
+        assertEquals(List.of(pooled), claimed.get(new GameStockId(1L, 10L)));
+        assertSame(order, pooled.getOrder());
+        assertFalse(pooled.isPooled());
+    }
+}
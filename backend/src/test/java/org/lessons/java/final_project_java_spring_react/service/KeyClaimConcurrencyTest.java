@@ -0,0 +1,134 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.lessons.java.final_project_java_spring_react.dto.CartQuote;
+import org.lessons.java.final_project_java_spring_react.dto.CartQuoteLine;
+import org.lessons.java.final_project_java_spring_react.model.Game;
+import org.lessons.java.final_project_java_spring_react.model.GameKey;
+import org.lessons.java.final_project_java_spring_react.model.Order;
+import org.lessons.java.final_project_java_spring_react.model.Platform;
+import org.lessons.java.final_project_java_spring_react.model.User;
+import org.lessons.java.final_project_java_spring_react.repository.GameKeyRepository;
+import org.lessons.java.final_project_java_spring_react.repository.GameRepository;
+import org.lessons.java.final_project_java_spring_react.repository.PlatformRepository;
+import org.lessons.java.final_project_java_spring_react.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * 500 parallel checkouts race for the 200 keys of one game and platform
+ * through the real reservation path, against the MySQL database configured in
+ * application.properties (the claim relies on MySQL 8's FOR UPDATE SKIP
+ * LOCKED). Opt-in, since it writes to that database:
+ *
+ * mvn test -Dtest=KeyClaimConcurrencyTest -Dmysql-tests=true
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "mysql-tests", matches = "true")
+class KeyClaimConcurrencyTest {
+
+    private static final int CHECKOUTS = 500;
+
+    private static final int KEYS = 200;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private GameKeyService gameKeyService;
+
+    @Autowired
+    private GameStockService gameStockService;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private PlatformRepository platformRepository;
+
+    @Autowired
+    private GameKeyRepository gameKeyRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void parallelCheckoutsNeverShareAKey() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+
+        Game game = new Game();
+        game.setTitle("Launch day " + run);
+        game.setPrice(10.0);
+        game.setPublisher("Concurrency test");
+        game = gameRepository.save(game);
+
+        Platform platform = new Platform();
+        platform.setName("Platform " + run);
+        platform = platformRepository.save(platform);
+
+        User user = new User();
+        user.setUsername("buyer-" + run);
+        user.setEmail("buyer-" + run + "@example.com");
+        user.setPassword("{noop}password");
+        User buyer = userRepository.save(user);
+
+        for (int i = 0; i < KEYS; i++) {
+            gameKeyService.createGameKey(new GameKey(run + "-" + i, game, platform));
+        }
+
+        CartQuote quote = new CartQuote(List.of(new CartQuoteLine(game.getId(), platform.getId(), game.getTitle(),
+                null, null, 1000, 0, 1000, KEYS, null)));
+
+        ExecutorService checkouts = Executors.newFixedThreadPool(CHECKOUTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Order>> results = new ArrayList<>();
+        for (int i = 0; i < CHECKOUTS; i++) {
+            String sessionId = "cs_test_" + run + "_" + i;
+            results.add(checkouts.submit(() -> {
+                start.await();
+                return orderService.createPendingOrder(buyer, sessionId, quote);
+            }));
+        }
+        start.countDown();
+
+        Set<Long> reservedKeyIds = new HashSet<>();
+        int orders = 0;
+        int outOfStock = 0;
+        for (Future<Order> result : results) {
+            try {
+                Order order = result.get(2, TimeUnit.MINUTES);
+                orders++;
+                assertEquals(1, order.getGameKeys().size());
+                reservedKeyIds.add(order.getGameKeys().get(0).getId());
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause().getMessage().startsWith("No available key"), e.getCause().getMessage());
+                outOfStock++;
+            }
+        }
+        checkouts.shutdown();
+
+        // Every key went to exactly one order, every other checkout was refused
+        assertEquals(KEYS, orders);
+        assertEquals(KEYS, reservedKeyIds.size());
+        assertEquals(CHECKOUTS - KEYS, outOfStock);
+        assertTrue(gameKeyRepository.findByGameIdAndPlatformIdAndIsSoldFalseAndOrderIsNull(game.getId(),
+                platform.getId()).isEmpty());
+        assertEquals(0, gameStockService.getAvailableStock(game.getId()));
+    }
+}
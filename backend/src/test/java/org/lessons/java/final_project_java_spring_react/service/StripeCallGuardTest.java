@@ -0,0 +1,124 @@
+package org.lessons.java.final_project_java_spring_react.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.stripe.Stripe;
+import com.stripe.exception.ApiException;
+import com.stripe.model.checkout.Session;
+
+class StripeCallGuardTest {
+
+    private FakeStripeServer stripe;
+
+    private StripeCallGuard guard;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stripe = new FakeStripeServer(0);
+        Stripe.apiKey = "sk_test_fake";
+        Stripe.overrideApiBase(stripe.baseUrl());
+        Stripe.setMaxNetworkRetries(0);
+        // SDK timeouts above the guard deadline, so slow answers are cut off by the guard
+        Stripe.setConnectTimeout(10000);
+        Stripe.setReadTimeout(10000);
+
+        // 2 calls in flight, circuit opens after 2 failures, deadline (500 + 1500) x 1 = 2s,
+        // well above the SDK's first (cold) call
+        guard = new StripeCallGuard(2, 50, 2, 60000, 500, 1500, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        guard.shutdown();
+        stripe.close();
+        Stripe.overrideApiBase(Stripe.LIVE_API_BASE);
+    }
+
+    private static long total(Map<String, Long> histogram) {
+        return histogram.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Test
+    void answersWithinTheDeadlineAreRecordedPerOperation() throws Exception {
+        Session session = guard.call("retrieveSession", () -> Session.retrieve("cs_test_1"));
+        guard.call("createCheckoutSession", () -> Session.create(Map.of("mode", "payment")));
+        guard.call("createCheckoutSession", () -> Session.create(Map.of("mode", "payment")));
+
+        assertEquals("cs_test_1", session.getId());
+        assertEquals(1, total(guard.getLatencyHistograms().get("retrieveSession")));
+        assertEquals(2, total(guard.getLatencyHistograms().get("createCheckoutSession")));
+        assertEquals(0, (long) guard.getTimedOutCalls().get("retrieveSession"));
+        assertEquals("CLOSED", guard.getCircuitState());
+    }
+
+    @Test
+    void slowStripeTimesOutAndOpensTheCircuit() {
+        stripe.setLatencyMs(3000);
+
+        long start = System.currentTimeMillis();
+        assertThrows(StripeUnavailableException.class, () -> guard.call("retrieveSession",
+                () -> Session.retrieve("cs_test_1")));
+        assertTrue(System.currentTimeMillis() - start < 3000);
+        assertThrows(StripeUnavailableException.class, () -> guard.call("retrieveSession",
+                () -> Session.retrieve("cs_test_1")));
+
+        assertEquals(2, (long) guard.getTimedOutCalls().get("retrieveSession"));
+        assertEquals("OPEN", guard.getCircuitState());
+
+        // Refused without reaching Stripe
+        assertThrows(StripeUnavailableException.class, () -> guard.call("createCheckoutSession",
+                () -> Session.create(Map.of("mode", "payment"))));
+        assertEquals(2, stripe.getRequests());
+        assertEquals(1, (long) guard.getRejectedCalls().get("createCheckoutSession"));
+        assertEquals(0, (long) guard.getRejectedCalls().get("retrieveSession"));
+    }
+
+    @Test
+    void serverErrorsArePassedOnAndCountAsOutages() {
+        stripe.setFailing(true);
+
+        assertThrows(ApiException.class, () -> guard.call("retrieveSession", () -> Session.retrieve("cs_test_1")));
+        assertThrows(ApiException.class, () -> guard.call("retrieveSession", () -> Session.retrieve("cs_test_1")));
+
+        assertEquals("OPEN", guard.getCircuitState());
+        assertEquals(0, (long) guard.getTimedOutCalls().get("retrieveSession"));
+    }
+
+    @Test
+    void fullBulkheadTurnsExtraCallersAway() throws Exception {
+        stripe.setLatencyMs(250);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        CountDownLatch started = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            callers.submit(() -> {
+                started.countDown();
+                return guard.call("retrieveSession", () -> Session.retrieve("cs_test_1"));
+            });
+        }
+        started.await();
+        while (guard.getCallsInFlight() < 2) {
+            Thread.sleep(5);
+        }
+
+        assertThrows(StripeUnavailableException.class, () -> guard.call("retrieveSession",
+                () -> Session.retrieve("cs_test_2")));
+        assertEquals(1, (long) guard.getRejectedCalls().get("retrieveSession"));
+
+        callers.shutdown();
+        assertTrue(callers.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, stripe.getRequests());
+        assertEquals("CLOSED", guard.getCircuitState());
+    }
+}
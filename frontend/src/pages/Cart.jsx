@@ -1,12 +1,34 @@
-import { useContext } from 'react';
+import { useContext, useEffect, useState } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { GlobalContext } from '../contexts/GlobalContext';
+import axios from 'axios';
+
+const API_BASE_URL = 'http://localhost:8080/api';
 
 export default function Cart() {
     const { cart, user, removeFromCart } = useContext(GlobalContext);
     const navigate = useNavigate();
 
+    // Prices, stock and totals computed by the server (same as checkout charges)
+    const [quote, setQuote] = useState(null);
+
+    useEffect(() => {
+        setQuote(null);
+        if (cart.length === 0) {
+            return;
+        }
+        let cancelled = false;
+        const items = cart.map(item => ({ gameId: item.game.id, platformId: item.platform.id }));
+        axios.post(`${API_BASE_URL}/cart/quote`, { items })
+            .then(response => { if (!cancelled) setQuote(response.data); })
+            .catch(err => console.error('Cart quote error:', err));
+        return () => { cancelled = true; };
+    }, [cart]);
+
     const calculateTotal = () => {
+        if (quote) {
+            return quote.total.toFixed(2);
+        }
         return cart.reduce((sum, item) => {
             const price = item.game.price;
             const discount = item.game.discountPercentage || 0;
@@ -15,6 +37,12 @@ export default function Cart() {
         }, 0).toFixed(2);
     };
 
+    const unitPrice = (item, index) => {
+        const line = quote?.lines[index];
+        return line ? line.unitPrice.toFixed(2)
+            : (item.game.price - (item.game.price * item.game.discountPercentage / 100)).toFixed(2);
+    };
+
     const handleProceedToCheckout = () => {
         if (!user) {
             // Save current location to redirect back after login
@@ -74,6 +102,9 @@ export default function Cart() {
                                             <i className="fas fa-gamepad me-1"></i>
                                             {item.platform.name}
                                         </p>
+                                        {quote?.lines[index]?.error && (
+                                            <small className="text-danger">{quote.lines[index].error}</small>
+                                        )}
                                     </div>
                                     <div className="col-md-3 text-end">
                                         {item.game.discountPercentage > 0 ? (
@@ -87,7 +118,7 @@ export default function Cart() {
                                                     </small>
                                                 </div>
                                                 <h6 className="text-success" style={{ marginRight: '0.5rem' }}>
-                                                    €{(item.game.price - (item.game.price * item.game.discountPercentage / 100)).toFixed(2)}
+                                                    €{unitPrice(item, index)}
                                                 </h6>
                                             </>
                                         ) : (
@@ -1,4 +1,4 @@
-import { useState, useContext } from 'react';
+import { useState, useContext, useRef, useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { GlobalContext } from '../contexts/GlobalContext';
 import axios from 'axios';
@@ -10,8 +10,29 @@ export default function Checkout() {
     const [loading, setLoading] = useState(false);
     const [error, setError] = useState('');
     const navigate = useNavigate();
+    // Same key for every retry of this checkout, so the server never creates two sessions
+    const idempotencyKey = useRef(crypto.randomUUID());
+
+    // Prices, stock and totals computed by the server (same as checkout charges)
+    const [quote, setQuote] = useState(null);
+
+    useEffect(() => {
+        setQuote(null);
+        if (cart.length === 0) {
+            return;
+        }
+        let cancelled = false;
+        const items = cart.map(item => ({ gameId: item.game.id, platformId: item.platform.id }));
+        axios.post(`${API_BASE_URL}/cart/quote`, { items })
+            .then(response => { if (!cancelled) setQuote(response.data); })
+            .catch(err => console.error('Cart quote error:', err));
+        return () => { cancelled = true; };
+    }, [cart]);
 
     const calculateTotal = () => {
+        if (quote) {
+            return quote.total.toFixed(2);
+        }
         return cart.reduce((sum, item) => {
             const price = item.game.price;
             const discount = item.game.discountPercentage || 0;
@@ -20,6 +41,12 @@ export default function Checkout() {
         }, 0).toFixed(2);
     };
 
+    const unitPrice = (item, index) => {
+        const line = quote?.lines[index];
+        return line ? line.unitPrice.toFixed(2)
+            : (item.game.price - (item.game.price * item.game.discountPercentage / 100)).toFixed(2);
+    };
+
     const handlePayment = async () => {
         console.log('🛒 Starting checkout process...');
         console.log('👤 Current user:', user);
@@ -55,7 +82,8 @@ export default function Checkout() {
                 {
                     withCredentials: true,
                     headers: {
-                        'Content-Type': 'application/json'
+                        'Content-Type': 'application/json',
+                        'Idempotency-Key': idempotencyKey.current
                     }
                 }
             );
@@ -164,6 +192,9 @@ export default function Checkout() {
                                             <i className="fas fa-gamepad me-1"></i>
                                             {item.platform.name}
                                         </p>
+                                        {quote?.lines[index]?.error && (
+                                            <small className="text-danger">{quote.lines[index].error}</small>
+                                        )}
                                     </div>
                                     <div className="col-md-4 text-end">
                                         {item.game.discountPercentage > 0 ? (
@@ -177,7 +208,7 @@ export default function Checkout() {
                                                     </small>
                                                 </div>
                                                 <h6 className="text-success">
-                                                    €{(item.game.price - (item.game.price * item.game.discountPercentage / 100)).toFixed(2)}
+                                                    €{unitPrice(item, index)}
                                                 </h6>
                                             </>
                                         ) : (
@@ -3,6 +3,8 @@ import { useSearchParams, useNavigate } from 'react-router-dom';
 import axios from 'axios';
 
 const API_BASE_URL = 'http://localhost:8080/api';
+const CONFIRM_POLL_MS = 1500;
+const MAX_CONFIRM_ATTEMPTS = 20;
 
 export default function CheckoutSuccess() {
     const [searchParams] = useSearchParams();
@@ -20,24 +22,43 @@ export default function CheckoutSuccess() {
             return;
         }
 
-        const confirmPayment = async () => {
+        let cancelled = false;
+        let timer;
+
+        // The order is completed by the Stripe webhook: poll until it has been applied
+        const confirmPayment = async (attempt) => {
             try {
                 const response = await axios.get(`${API_BASE_URL}/checkout/success?session_id=${sessionId}`, {
                     headers: {
                         'Authorization': `Bearer ${localStorage.getItem('token')}`
                     }
                 });
+                if (cancelled) return;
 
-                setOrder(response.data.order);
+                if (response.status === 202) {
+                    if (attempt < MAX_CONFIRM_ATTEMPTS) {
+                        timer = setTimeout(() => confirmPayment(attempt + 1), CONFIRM_POLL_MS);
+                        return;
+                    }
+                    setError('Your payment is still being processed. Your keys will appear in your orders shortly.');
+                } else {
+                    setOrder(response.data.order);
+                }
+                setLoading(false);
             } catch (err) {
+                if (cancelled) return;
                 console.error('Payment confirmation error:', err);
                 setError(err.response?.data?.error || 'Failed to confirm payment');
-            } finally {
                 setLoading(false);
             }
         };
 
-        confirmPayment();
+        confirmPayment(1);
+
+        return () => {
+            cancelled = true;
+            clearTimeout(timer);
+        };
     }, [searchParams]);
 
     if (loading) {
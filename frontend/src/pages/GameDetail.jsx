@@ -11,6 +11,9 @@ function GameDetail() {
   const [game, setGame] = useState(null);
   const [error, setError] = useState(null);
   const [reviews, setReviews] = useState([]);
+  const [reviewsTotal, setReviewsTotal] = useState(0);
+  const [reviewsCursor, setReviewsCursor] = useState(null);
+  const [reviewSort, setReviewSort] = useState('NEWEST');
   const [showReviewForm, setShowReviewForm] = useState(false);
   const [isClosing, setIsClosing] = useState(false);
   const [newReview, setNewReview] = useState({ rating: 0, comment: '' });
@@ -31,7 +34,6 @@ function GameDetail() {
         console.log('Game details:', response.data);
         const { data } = response;
         setGame(data);
-        setReviews(data.reviews || []);
       })
       .catch(error => {
         console.error('Error fetching game:', error);
@@ -42,6 +44,24 @@ function GameDetail() {
       });
   };
 
+  // Reviews are paginated separately from the game (cursor = null loads the first page)
+  const fetchReviews = (sort, cursor = null) => {
+    axios.get(`${import.meta.env.VITE_API_URL}/games/${id}/reviews`, {
+      params: { sort, cursor: cursor || undefined, limit: 10 }
+    })
+      .then(response => {
+        const { items, nextCursor, total } = response.data;
+        setReviews(previous => (cursor ? [...previous, ...items] : items));
+        setReviewsCursor(nextCursor);
+        if (!cursor) {
+          setReviewsTotal(total);
+        }
+      })
+      .catch(error => {
+        console.error('Error fetching reviews:', error);
+      });
+  };
+
   const handleSubmitReview = (e) => {
     e.preventDefault();
 
@@ -74,7 +94,8 @@ function GameDetail() {
         setShowReviewForm(false);
         setToastMessage('✅ Review submitted successfully!');
         setShowToast(true);
-        fetchGame(); // Refresh to get new review
+        fetchGame(); // Refresh the average rating
+        fetchReviews(reviewSort);
       })
       .catch(error => {
         console.error('Error submitting review:', error);
@@ -102,6 +123,11 @@ function GameDetail() {
     // eslint-disable-next-line react-hooks/exhaustive-deps
   }, [id]);
 
+  useEffect(() => {
+    fetchReviews(reviewSort);
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [id, reviewSort]);
+
   // Fetch stock when platform changes
   useEffect(() => {
     if (selectedPlatform && game) {
@@ -199,7 +225,7 @@ function GameDetail() {
                   onClick={() => document.getElementById('reviews-section')?.scrollIntoView({ behavior: 'smooth' })}
                   style={{ cursor: 'pointer' }}
                 >
-                  ({reviews.length} {reviews.length === 1 ? 'review' : 'reviews'})
+                  ({reviewsTotal} {reviewsTotal === 1 ? 'review' : 'reviews'})
                 </span>
               </div>
               <div className="hero-publisher">
@@ -320,6 +346,16 @@ function GameDetail() {
       < div id="reviews-section" className="reviews-section" >
         <div className="reviews-header">
           <h2>Reviews</h2>
+          {reviewsTotal > 1 && (
+            <select
+              className="review-sort"
+              value={reviewSort}
+              onChange={(e) => setReviewSort(e.target.value)}
+            >
+              <option value="NEWEST">Newest first</option>
+              <option value="TOP_RATED">Top rated</option>
+            </select>
+          )}
           {!showReviewForm && (
             user ? (
               <button onClick={() => setShowReviewForm(true)} className="write-review-btn">
@@ -427,16 +463,16 @@ function GameDetail() {
                 <div className="review-header">
                   <div className="review-author">
                     <span className="author-icon">👤</span>
-                    <strong>{review.user?.username || 'Anonymous'}</strong>
+                    <strong>{review.username || 'Anonymous'}</strong>
                   </div>
                   <div className="review-rating">
                     {'⭐'.repeat(review.rating)}
                   </div>
                 </div>
                 <p className="review-comment">{review.comment}</p>
-                {review.reviewDate && (
+                {review.createdAt && (
                   <span className="review-date">
-                    {new Date(review.reviewDate).toLocaleDateString()}
+                    {new Date(review.createdAt).toLocaleDateString()}
                   </span>
                 )}
               </div>
@@ -445,6 +481,12 @@ function GameDetail() {
             <p className="no-reviews">No reviews yet. Be the first to review this game!</p>
           )}
         </div>
+
+        {reviewsCursor && (
+          <button onClick={() => fetchReviews(reviewSort, reviewsCursor)} className="load-more-reviews-btn">
+            Load more reviews
+          </button>
+        )}
       </div >
 
       {/* Toast Notification */}